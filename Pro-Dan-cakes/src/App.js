@@ -13,6 +13,7 @@ import ProductList from './pages/ProductList';
 import { CartProvider } from './context/CartContext';
 import PatisserieLogin from './pages/PatisserieLogin';
 import ForgotPassword from './pages/ForgotPassword';
+import ConfirmEmail from './pages/ConfirmEmail';
 import PatisserieSignup from './pages/PatisserieSignup';
 import TermsOfUse from './pages/TermsOfUse';
 import PrivacyPolicy from './pages/PrivacyPolicy';
@@ -44,6 +45,7 @@ const router = createBrowserRouter([
             { path: "/products", element: <ProductList /> },
             { path: "/login", element: <PatisserieLogin /> },
             { path: "/forgot-password", element: <ForgotPassword /> },
+            { path: "/confirm-email", element: <ConfirmEmail /> },
             { path: "/signup", element: <PatisserieSignup /> },
             { path: "/terms", element: <TermsOfUse /> },
             { path: "/policy", element: <PrivacyPolicy /> },
@@ -0,0 +1,58 @@
+import React, { useEffect, useRef, useState } from 'react';
+import { Link, useSearchParams } from 'react-router-dom';
+
+// Lien de l'email de confirmation : /confirm-email?token=...
+const ConfirmEmail = () => {
+    const [searchParams] = useSearchParams();
+    const token = searchParams.get('token');
+    const [status, setStatus] = useState(token ? 'pending' : 'error');
+    const [message, setMessage] = useState(token ? 'Confirmation en cours...' : 'Lien de confirmation invalide.');
+    // Le token ne sert qu'une fois : un second envoi (double rendu en développement) échouerait
+    const envoye = useRef(false);
+
+    useEffect(() => {
+        if (!token || envoye.current) {
+            return;
+        }
+        envoye.current = true;
+
+        const confirmer = async () => {
+            try {
+                const response = await fetch(
+                    `http://localhost:8081/api/auth/confirm-email?token=${encodeURIComponent(token)}`,
+                    { method: 'POST' }
+                );
+                const text = await response.text();
+                if (response.ok) {
+                    setStatus('success');
+                    setMessage('Votre email est confirmé. Vous pouvez maintenant vous connecter.');
+                } else {
+                    setStatus('error');
+                    setMessage(text || 'Ce lien de confirmation est invalide ou a expiré.');
+                }
+            } catch (error) {
+                console.error('Erreur lors de la confirmation:', error);
+                setStatus('error');
+                setMessage('Erreur lors de la requête. Veuillez réessayer plus tard.');
+            }
+        };
+        confirmer();
+    }, [token]);
+
+    return (
+        <div className="max-w-sm mx-auto mt-10 p-6 border rounded-lg shadow-lg bg-white text-center">
+            <h2 className="text-2xl font-bold mb-6">Confirmation de l'email</h2>
+            <p className={status === 'error' ? 'text-red-600' : ''}>{message}</p>
+            {status === 'success' && (
+                <Link
+                    to="/login"
+                    className="inline-block mt-6 bg-blue-500 text-white py-2 px-4 rounded-lg hover:bg-blue-600 transition"
+                >
+                    Se connecter
+                </Link>
+            )}
+        </div>
+    );
+};
+
+export default ConfirmEmail;
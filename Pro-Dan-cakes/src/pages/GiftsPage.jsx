@@ -35,7 +35,7 @@ const GiftsPage = () => {
                         key={product.id}
                         title={product.nom}
                         description={product.description}
-                        imageSrc={`http://localhost:8081${product.image}`}
+                        imageSrc={`http://localhost:8081${product.imageMedium || product.image}`}
                     />
                 ))}
             </div>
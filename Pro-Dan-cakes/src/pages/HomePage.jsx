@@ -106,7 +106,7 @@ const HomePage = () => {
                             <ProductCard
                                 title={product.nom}
                                 description={product.description}
-                                imageSrc={`http://localhost:8081${product.image}`}
+                                imageSrc={`http://localhost:8081${product.imageMedium || product.image}`}
                             />
                         </div>
                     ))}
@@ -20,6 +20,35 @@ const PatisserieSignup = () => {
     const [currentVideo, setCurrentVideo] = useState(null);
     const [missingInfo, setMissingInfo] = useState(null);
     const [isModalOpen, setIsModalOpen] = useState(false);
+    // null : pas encore vérifié ; true / false : réponse de /api/auth/email-available
+    const [emailDisponible, setEmailDisponible] = useState(null);
+
+    // Vérifie l'email pendant la saisie, 400 ms après la dernière frappe
+    useEffect(() => {
+        setEmailDisponible(null);
+        const email = formData.email.trim();
+        if (!/^[^\s@]+@[^\s@]+\.[^\s@]+$/.test(email)) return;
+
+        const controller = new AbortController();
+        const timer = setTimeout(async () => {
+            try {
+                const response = await fetch(
+                    `http://localhost:8081/api/auth/email-available?email=${encodeURIComponent(email)}`,
+                    { signal: controller.signal }
+                );
+                if (response.ok) {
+                    const data = await response.json();
+                    setEmailDisponible(data.available);
+                }
+            } catch (error) {
+                // Vérification indicative : l'inscription tranchera
+            }
+        }, 400);
+        return () => {
+            clearTimeout(timer);
+            controller.abort();
+        };
+    }, [formData.email]);
 
     const handleGoogleResponse = useCallback(async (response) => {
         const userObject = jwtDecode(response.credential);
@@ -125,6 +154,8 @@ const PatisserieSignup = () => {
             newErrors.email = "L'email est obligatoire.";
         } else if (!emailRegex.test(formData.email)) {
             newErrors.email = "Veuillez fournir une adresse email valide.";
+        } else if (emailDisponible === false) {
+            newErrors.email = "Un compte existe déjà avec cet email.";
         }
 
         // Validation du mot de passe
@@ -159,6 +190,8 @@ const PatisserieSignup = () => {
                 navigate('/login', {
                     state: { message: 'Inscription réussie. Veuillez vous connecter.' }
                 });
+            } else if (response.status === 400) {
+                setErrors({ submit: await response.text() });
             } else {
                 setErrors({
                     submit: "Une erreur s'est produite lors de l'inscription."
@@ -243,8 +276,10 @@ const PatisserieSignup = () => {
                                 }`}
                                 placeholder="Votre email"
                             />
-                            {errors.email && (
+                            {errors.email ? (
                                 <p className="mt-1 text-sm text-red-500">{errors.email}</p>
+                            ) : emailDisponible === false && (
+                                <p className="mt-1 text-sm text-red-500">Un compte existe déjà avec cet email.</p>
                             )}
                         </div>
 
@@ -37,11 +37,12 @@ const PaymentService = () => {
         customer: null, // Assuming customer details are handled server-side
         customerEmail: null, // Assuming customer email is handled server-side
         deliveryAddress: null, // Assuming delivery address is handled server-side
-        orderItems: cart.map(item => ({
-          product: { nom: item.nom },
-          quantity: item.quantity,
-          price: item.prix
-        })),
+        orderItems: cart
+          .filter(item => Number(item.quantity) > 0)
+          .map(item => ({
+            produitId: item.id,
+            quantity: Number(item.quantity)
+          })),
         successful: false,
         orderDetails: []
       };
@@ -123,7 +123,7 @@ const ProductList = () => {
                         key={product.id}
                         className="relative bg-cover bg-center rounded-lg shadow-lg overflow-hidden group"
                         style={{
-                            backgroundImage: `url(http://localhost:8081${product.image})`,
+                            backgroundImage: `url(http://localhost:8081${product.imageMedium || product.image})`,
                             height: '300px',
                         }}
                     >
@@ -1,4 +1,4 @@
-import React, { useState, useContext, useEffect } from 'react';
+import React, { useState, useContext, useEffect, useRef } from 'react';
 import { Edit2, Trash2, Users as UsersIcon, Search, FileDown, Filter } from 'lucide-react';
 import { AuthContext } from '../../../Auth/AuthContext';
 import PhoneInput from 'react-phone-input-2';
@@ -15,22 +15,73 @@ const Users = () => {
   const [errors, setErrors] = useState({});
   const { authToken, email } = useContext(AuthContext);
   const [filterRole, setFilterRole] = useState('ALL');
+  // Ticket d'élévation renvoyé par verify-admin : évite de redemander le mot de passe à chaque action
+  const [adminTicket, setAdminTicket] = useState(null);
+  // Curseur de la page suivante de l'annuaire, null quand tout est chargé
+  const [nextCursor, setNextCursor] = useState(null);
+  const adminTicketRef = useRef(null);
 
+  // Filtres appliqués côté serveur (rôle, début de l'email), avec un léger délai pendant la saisie
   useEffect(() => {
-    fetchUsers();
-  }, []);
+    const timer = setTimeout(() => fetchUsers(null), 300);
+    return () => clearTimeout(timer);
+  }, [filterRole, searchTerm]);
 
-  const fetchUsers = async () => {
+  useEffect(() => {
+    adminTicketRef.current = adminTicket;
+  }, [adminTicket]);
+
+  // Révoque le ticket en quittant la page
+  useEffect(() => {
+    return () => {
+      const ticket = adminTicketRef.current;
+      if (ticket) {
+        fetch('http://localhost:8081/api/auth/admin-ticket/revoke', {
+          method: 'POST',
+          keepalive: true,
+          headers: {
+            'Authorization': `Bearer ${authToken}`,
+            'X-Admin-Ticket': ticket.value,
+          },
+        }).catch(() => {});
+      }
+    };
+  }, [authToken]);
+
+  const ticketValide = (ticket) => ticket && ticket.expiresAt - 5000 > Date.now();
+
+  const adminHeaders = (ticket) => ({
+    'Authorization': `Bearer ${authToken}`,
+    'Content-Type': 'application/json',
+    'X-Admin-Ticket': ticket ? ticket.value : '',
+  });
+
+  // Ticket refusé (expiré, révoqué) : on redemande le mot de passe
+  const handleTicketRefuse = (action) => {
+    setAdminTicket(null);
+    setIsEditing(false);
+    setVerificationAction(action);
+    setIsVerifying(true);
+  };
+
+  // L'annuaire est réservé aux admins : sans ticket valide, le mot de passe est demandé
+  const fetchUsers = async (cursor, ticket = adminTicket) => {
+    const params = new URLSearchParams({ size: '50' });
+    if (cursor) params.set('cursor', cursor);
+    if (filterRole !== 'ALL') params.set('role', filterRole);
+    if (searchTerm.trim()) params.set('email', searchTerm.trim());
     try {
-      const response = await fetch('http://localhost:8081/api/auth/get-all-users', {
+      const response = await fetch(`http://localhost:8081/api/auth/users?${params}`, {
         method: 'GET',
-        headers: {
-          'Authorization': `Bearer ${authToken}`,
-          'Content-Type': 'application/json',
-        },
+        headers: adminHeaders(ticket),
       });
+      if (response.status === 403) {
+        handleTicketRefuse({ type: 'list', cursor });
+        return;
+      }
       const data = await response.json();
-      setUsers(data);
+      setUsers(cursor ? [...users, ...data.items] : data.items);
+      setNextCursor(data.nextCursor);
     } catch (error) {
       console.error('Error fetching users:', error);
     }
@@ -46,26 +97,59 @@ const Users = () => {
         },
         body: JSON.stringify({ email , password }),
       });
-      return response.ok;
+      if (!response.ok) {
+        return null;
+      }
+      const data = await response.json();
+      return { value: data.ticket, expiresAt: data.expiresAt };
     } catch (error) {
       console.error('Error verifying admin:', error);
-      return false;
+      return null;
     }
   };
 
-  const handleVerification = async (e) => {
-    e.preventDefault();
-    const isVerified = await verifyAdminPassword(verificationPassword);
+  // Fiche d'édition réservée aux admins, comme l'annuaire : ticket refusé => mot de passe redemandé
+  const fetchUser = async (user, ticket) => {
+    try {
+      const response = await fetch(`http://localhost:8081/api/auth/users/detail?email=${encodeURIComponent(user.email)}`, {
+        method: 'GET',
+        headers: adminHeaders(ticket),
+      });
+      if (response.status === 403) {
+        handleTicketRefuse({ type: 'edit', user });
+        return null;
+      }
+      return response.ok ? await response.json() : null;
+    } catch (error) {
+      console.error('Error fetching user:', error);
+      return null;
+    }
+  };
 
-    if (isVerified) {
-      if (verificationAction.type === 'edit') {
+  const runAction = async (action, ticket) => {
+    if (action.type === 'list') {
+      await fetchUsers(action.cursor, ticket);
+    } else if (action.type === 'edit') {
+      // L'annuaire ne contient que id, nom, email et rôles : on charge la fiche d'édition
+      const user = await fetchUser(action.user, ticket);
+      if (user) {
         setIsEditing(true);
-        setEditingUser(verificationAction.user);
-      } else if (verificationAction.type === 'delete') {
-        await deleteUser(verificationAction.user.email);
+        setEditingUser(user);
       }
+    } else if (action.type === 'delete') {
+      await deleteUser(action.user.email, ticket);
+    }
+  };
+
+  const handleVerification = async (e) => {
+    e.preventDefault();
+    const ticket = await verifyAdminPassword(verificationPassword);
+
+    if (ticket) {
+      setAdminTicket(ticket);
       setVerificationPassword('');
       setIsVerifying(false);
+      await runAction(verificationAction, ticket);
     } else {
       alert('Invalid admin password');
     }
@@ -75,14 +159,13 @@ const Users = () => {
     try {
       const response = await fetch(`http://localhost:8081/api/auth/update-user?email=${email}`, {
         method: 'PUT',
-        headers: {
-          'Authorization': `Bearer ${authToken}`,
-          'Content-Type': 'application/json',
-        },
+        headers: adminHeaders(adminTicket),
         body: JSON.stringify(updatedUser),
       });
 
-      if (response.ok) {
+      if (response.status === 403) {
+        handleTicketRefuse({ type: 'edit', user: updatedUser });
+      } else if (response.ok) {
         const contentType = response.headers.get('content-type');
         if (contentType && contentType.includes('application/json')) {
           const data = await response.json();
@@ -90,6 +173,10 @@ const Users = () => {
         } else {
           const text = await response.text();
           console.log('Response is not JSON:', text);
+          // Met à jour la ligne de l'annuaire avec les champs affichés
+          setUsers(users.map(user => user.email === email
+            ? { ...user, nom: updatedUser.nom, roles: updatedUser.roles }
+            : user));
         }
         setIsEditing(false); // Close the form after the request is sent
       } else {
@@ -103,15 +190,16 @@ const Users = () => {
     }
   };
 
-  const deleteUser = async (email) => {
+  const deleteUser = async (email, ticket) => {
     try {
-      await fetch(`http://localhost:8081/api/auth/delete-user?email=${email}`, {
+      const response = await fetch(`http://localhost:8081/api/auth/delete-user?email=${email}`, {
         method: 'DELETE',
-        headers: {
-          'Authorization': `Bearer ${authToken}`,
-          'Content-Type': 'application/json',
-        },
+        headers: adminHeaders(ticket),
       });
+      if (response.status === 403) {
+        handleTicketRefuse({ type: 'delete', user: users.find(user => user.email === email) });
+        return;
+      }
       setUsers(users.filter(user => user.email !== email));
     } catch (error) {
       console.error('Error deleting user:', error);
@@ -119,11 +207,19 @@ const Users = () => {
   };
 
   const handleEditClick = (user) => {
+    if (ticketValide(adminTicket)) {
+      runAction({ type: 'edit', user }, adminTicket);
+      return;
+    }
     setVerificationAction({ type: 'edit', user });
     setIsVerifying(true);
   };
 
   const handleDeleteClick = (user) => {
+    if (ticketValide(adminTicket)) {
+      runAction({ type: 'delete', user }, adminTicket);
+      return;
+    }
     setVerificationAction({ type: 'delete', user });
     setIsVerifying(true);
   };
@@ -159,15 +255,8 @@ const Users = () => {
     return colors[charCode % colors.length];
   };
 
-  const filteredUsers = users.filter(user => {
-    const searchTermLower = searchTerm.toLowerCase();
-    const matchesSearch = (
-      (user?.nom?.toLowerCase()?.includes(searchTermLower) ||
-      user?.email?.toLowerCase()?.includes(searchTermLower))
-    );
-    const matchesRole = filterRole === 'ALL' || user?.roles?.[0]?.name === filterRole;
-    return matchesSearch && matchesRole;
-  });
+  // Déjà filtrés par le serveur
+  const filteredUsers = users;
 
   const handleExport = () => {
     const csvContent = [
@@ -213,7 +302,7 @@ const Users = () => {
                 <Search className="w-5 h-5 text-gray-400 mr-2" />
                 <input
                   type="text"
-                  placeholder="Search users..."
+                  placeholder="Search by email..."
                   className="bg-transparent outline-none"
                   value={searchTerm}
                   onChange={(e) => setSearchTerm(e.target.value)}
@@ -286,6 +375,16 @@ const Users = () => {
               ))}
             </tbody>
           </table>
+          {nextCursor && (
+            <div className="p-4 flex justify-center">
+              <button
+                onClick={() => fetchUsers(nextCursor)}
+                className="px-4 py-2 bg-gray-100 rounded-lg hover:bg-gray-200"
+              >
+                Load more
+              </button>
+            </div>
+          )}
         </div>
       </main>
 
@@ -0,0 +1,121 @@
+package com.example.patisserie.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limites de débit par route (patisserie.rate-limit.*). Chaque route peut avoir
+ * une limite par adresse IP et une par email (lu dans le corps JSON) :
+ * "capacity" requêtes d'affilée, puis "per-minute" requêtes par minute.
+ */
+@Component
+@ConfigurationProperties(prefix = "patisserie.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Nombre maximal de clés (IP, email) suivies en mémoire
+    private int maxKeys = 100_000;
+
+    // Intervalle de nettoyage des clés inactives
+    private long sweepIntervalMs = 60_000;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public long getSweepIntervalMs() {
+        return sweepIntervalMs;
+    }
+
+    public void setSweepIntervalMs(long sweepIntervalMs) {
+        this.sweepIntervalMs = sweepIntervalMs;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    public static class Route {
+
+        private String path;
+        private String method = "POST";
+        private Limite ip;
+        private Limite email;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public Limite getIp() {
+            return ip;
+        }
+
+        public void setIp(Limite ip) {
+            this.ip = ip;
+        }
+
+        public Limite getEmail() {
+            return email;
+        }
+
+        public void setEmail(Limite email) {
+            this.email = email;
+        }
+    }
+
+    public static class Limite {
+
+        private int capacity;
+        private int perMinute;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getPerMinute() {
+            return perMinute;
+        }
+
+        public void setPerMinute(int perMinute) {
+            this.perMinute = perMinute;
+        }
+    }
+}
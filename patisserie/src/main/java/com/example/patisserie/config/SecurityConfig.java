@@ -1,21 +1,43 @@
 package com.example.patisserie.config;
 
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 
+import com.example.patisserie.security.BCryptCalibration;
+import com.example.patisserie.security.JwtAuthenticationFilter;
+import com.example.patisserie.security.JwtUtils;
+import com.example.patisserie.security.RateLimitFilter;
+import com.example.patisserie.services.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 @Configuration
 public class SecurityConfig {
 
     @SuppressWarnings("removal")
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtils jwtUtils, RateLimiter rateLimiter,
+                                                   RateLimitProperties rateLimitProperties,
+                                                   ObjectMapper objectMapper) throws Exception {
+        // Authentification portée par le JWT à chaque requête : ni session HTTP ni lecture en base
         http.csrf().disable()
+            .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+            // Limitation de débit d'abord : une requête refusée ne coûte ni vérification de token ni BCrypt
+            .addFilterBefore(new RateLimitFilter(rateLimiter, rateLimitProperties, objectMapper),
+                    UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtils), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests()
             .requestMatchers("/images/**").permitAll()
             .requestMatchers("/api/produits/**").permitAll() //.hasRole("ADMIN")
@@ -28,9 +50,22 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Hachages préfixés par leur algorithme ("{bcrypt}$2a$12$...") ; le coût est fixé par
+     * patisserie.password-hashing.strength, ou calibré au démarrage si elle vaut 0.
+     * Les anciens hachages sans préfixe restent vérifiés en BCrypt, et upgradeEncoding
+     * signale ceux à refaire (sans préfixe ou coût inférieur) lors de la prochaine connexion.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${patisserie.password-hashing.strength:0}") int strength,
+                                           @Value("${patisserie.password-hashing.target-ms:250}") long budgetMs,
+                                           @Value("${patisserie.password-hashing.min-strength:10}") int min,
+                                           @Value("${patisserie.password-hashing.max-strength:14}") int max) {
+        int cout = strength > 0 ? strength : BCryptCalibration.calibrer(budgetMs, min, max);
+        DelegatingPasswordEncoder encoder =
+                new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(cout)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 
     @Bean
@@ -1,11 +1,23 @@
 package com.example.patisserie.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.patisserie.services.ApiFormats;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ApiFormats apiFormats;
+
     @Override
     public void addCorsMappings(@SuppressWarnings("null") CorsRegistry registry) {
         registry.addMapping("/**")
@@ -14,5 +26,14 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true); // Si des cookies ou sessions sont utilisés
     }
-}
 
+    // CBOR et Smile avec la même configuration Jackson que le JSON, placés après lui :
+    // un client qui accepte */* continue de recevoir du JSON
+    @Override
+    public void extendMessageConverters(@SuppressWarnings("null") List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter
+                || c instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(apiFormats.mapper(ApiFormats.Format.CBOR)));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(apiFormats.mapper(ApiFormats.Format.SMILE)));
+    }
+}
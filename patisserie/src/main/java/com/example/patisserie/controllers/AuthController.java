@@ -3,12 +3,11 @@ package com.example.patisserie.controllers;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,12 +21,15 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.example.patisserie.dto.LoginRequest;
 import com.example.patisserie.dto.RegisterRequest;
+import com.example.patisserie.dto.UtilisateurFiche;
+import com.example.patisserie.dto.UtilisateurPage;
 import com.example.patisserie.dto.VerifyAdminRequest;
+import com.example.patisserie.exceptions.ServiceSaturatedException;
 import com.example.patisserie.models.JwtResponse;
-import com.example.patisserie.models.Role;
 import com.example.patisserie.models.Utilisateur;
+import com.example.patisserie.security.AdminTicketService;
 import com.example.patisserie.security.JwtUtils;
-import com.example.patisserie.services.EmailService;
+import com.example.patisserie.security.UtilisateurAuthentifie;
 import com.example.patisserie.services.UtilisateurService;
 
 @RestController
@@ -37,11 +39,13 @@ public class AuthController {
 
     @Autowired
     private UtilisateurService utilisateurService;
-    private EmailService emailService;
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private AdminTicketService adminTicketService;
+
     @PostMapping("/validate-token")
     public ResponseEntity<?> validateToken(@RequestHeader("Authorization") String token) {
         if (token != null && token.startsWith("Bearer ")) {
@@ -59,26 +63,62 @@ public class AuthController {
         return ResponseEntity.ok("Utilisateur enregistré avec succès !");
     }
 
+    // Email libre ou déjà utilisé, pour le formulaire d'inscription
+    @GetMapping("/email-available")
+    public ResponseEntity<Map<String, Object>> isEmailAvailable(@RequestParam String email) {
+        return ResponseEntity.ok(Map.of("email", email, "available", utilisateurService.isEmailDisponible(email)));
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             // Authentifier et générer le token
             String token = utilisateurService.authenticate(request);
             return ResponseEntity.ok(new JwtResponse(token));
+        } catch (ServiceSaturatedException e) {
+            // 503 + Retry-After (GlobalExceptionHandler), pas un échec d'authentification
+            throw e;
         } catch (RuntimeException e) {
             // Gérer les erreurs d'authentification
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
         }
     }
 
-    @GetMapping("/get-all-users")
-    public ResponseEntity<List<Utilisateur>> getAllUsers() {
-        List<Utilisateur> users = utilisateurService.getAllUsers();
-        return ResponseEntity.ok(users);
+    // Annuaire paginé (id, nom, email, rôles), filtrable par rôle et début d'email ; réservé aux admins
+    @GetMapping("/users")
+    public ResponseEntity<UtilisateurPage> getAnnuaire(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "50") int size,
+                                                       @RequestParam(required = false) String role,
+                                                       @RequestParam(required = false) String email,
+                                                       @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                                       Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
+        return ResponseEntity.ok(utilisateurService.getAnnuaire(cursor, size, role, email));
     }
     
+    // Fiche d'édition (champs modifiables par update-user) ; réservée aux admins
+    @GetMapping("/users/detail")
+    public ResponseEntity<?> getFiche(@RequestParam String email,
+                                      @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                      Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
+        Optional<UtilisateurFiche> fiche = utilisateurService.getFiche(email);
+        if (fiche.isPresent()) {
+            return ResponseEntity.ok(fiche.get());
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Utilisateur introuvable !");
+        }
+    }
+
+    // Son propre compte uniquement : l'email demandé doit être celui du JWT
     @GetMapping("/get-user")
-    public ResponseEntity<?> getUser(@RequestParam String email) {
+    public ResponseEntity<?> getUser(@RequestParam String email, Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UtilisateurAuthentifie utilisateur)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentification requise");
+        }
+        if (!Utilisateur.normaliserEmail(utilisateur.getEmail()).equals(Utilisateur.normaliserEmail(email))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Accès refusé");
+        }
         Optional<Utilisateur> user = utilisateurService.getUserByEmail(email);
         if (user.isPresent()) {
             return ResponseEntity.ok(user);
@@ -88,7 +128,10 @@ public class AuthController {
     }
 
     @PutMapping("/update-user")
-    public ResponseEntity<?> updateUser(@RequestParam String email, @RequestBody Utilisateur updatedUser) {
+    public ResponseEntity<?> updateUser(@RequestParam String email, @RequestBody Utilisateur updatedUser,
+                                        @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                        Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
         try {
             utilisateurService.updateUser(email, updatedUser);
             return ResponseEntity.ok("Utilisateur mis à jour avec succès !");
@@ -98,7 +141,10 @@ public class AuthController {
     }
 
     @DeleteMapping("/delete-user")
-    public ResponseEntity<?> deleteUser(@RequestParam String email) {
+    public ResponseEntity<?> deleteUser(@RequestParam String email,
+                                        @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                        Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
         try {
             utilisateurService.deleteUser(email);
             return ResponseEntity.ok("Utilisateur supprimé avec succès !");
@@ -107,10 +153,13 @@ public class AuthController {
         }
     }
 
+    // Rôles lus en base (pas dans le JWT, valable 24 h) : [{"name": "ADMIN"}, ...]
     @GetMapping("/get-user-role")
     public ResponseEntity<?> getUserRole(@RequestParam String email) {
         try {
-            Set<Role> roles = utilisateurService.getUserRoles(email);
+            List<Map<String, String>> roles = utilisateurService.getUserRoles(email).stream()
+                    .map(role -> Map.of("name", role.name()))
+                    .toList();
             return ResponseEntity.ok(roles);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -124,27 +173,38 @@ public class AuthController {
                 return ResponseEntity.badRequest().body("Provider information is required");
             }
             
-            // Register the user
+            // Register the user (le service envoie l'email de confirmation)
             utilisateurService.registerSocialUser(request);
-            
-            // Send confirmation email
-            String confirmationToken = UUID.randomUUID().toString();
-            emailService.sendConfirmationEmail(request.getEmail(), confirmationToken);
-            
+
             return ResponseEntity.ok("Utilisateur enregistré avec succès ! Veuillez vérifier votre email.");
+        } catch (ServiceSaturatedException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    // Lien de l'email de confirmation ; le token n'est valable qu'une fois
+    @PostMapping("/confirm-email")
+    public ResponseEntity<String> confirmEmail(@RequestParam String token) {
+        utilisateurService.confirmEmail(token);
+        return ResponseEntity.ok("Email confirmé !");
+    }
+
     @PostMapping("/assign-role")
-    public ResponseEntity<String> assignRoleToUser(@RequestParam Long userId, @RequestParam String roleName) {
+    public ResponseEntity<String> assignRoleToUser(@RequestParam Long userId, @RequestParam String roleName,
+                                                   @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                                   Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
         utilisateurService.assignRoleToUser(userId, roleName);
         return ResponseEntity.ok("Rôle assigné avec succès !");
     }
 
     // Révoquer un rôle d'un utilisateur
     @PostMapping("/revoke-role")
-    public ResponseEntity<String> revokeRoleFromUser(@RequestParam Long userId, @RequestParam String roleName) {
+    public ResponseEntity<String> revokeRoleFromUser(@RequestParam Long userId, @RequestParam String roleName,
+                                                     @RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                                     Authentication authentication) {
+        exigerTicketAdmin(ticket, authentication);
         utilisateurService.revokeRoleFromUser(userId, roleName);
         return ResponseEntity.ok("Rôle révoqué avec succès !");
     }
@@ -155,21 +215,37 @@ public class AuthController {
         System.out.println("from controller "+ verify);
             
             if (verify) {
-                // Return success response
+                // Ticket d'élévation : les actions admin suivantes n'exigent plus le mot de passe
+                AdminTicketService.Ticket ticket = adminTicketService.emettre(request.getEmail());
                 return ResponseEntity.ok()
                 .body(Map.of(
                     "verified", true,
-                    "message", "Admin verification successful"
+                    "message", "Admin verification successful",
+                    "ticket", ticket.getValeur(),
+                    "expiresAt", ticket.getExpiration()
                 ));
             }
             return ResponseEntity
             .status(HttpStatus.UNAUTHORIZED)
             .body("Invalid password");
     
+        } catch (ServiceSaturatedException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error during verification: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Fin de session admin : le ticket n'est plus accepté, même avant son expiration
+    @PostMapping("/admin-ticket/revoke")
+    public ResponseEntity<?> revokeAdminTicket(@RequestHeader(AdminTicketService.HEADER) String ticket) {
+        adminTicketService.revoquer(ticket);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void exigerTicketAdmin(String ticket, Authentication authentication) {
+        adminTicketService.exiger(ticket, authentication);
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.patisserie.controllers;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.example.patisserie.exceptions.AdminTicketRequiredException;
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.exceptions.ConflictException;
+import com.example.patisserie.exceptions.ServiceSaturatedException;
 import com.example.patisserie.services.UtilisateurService.EmailAlreadyExistsException;
 import com.example.patisserie.services.UtilisateurService.RoleNotFoundException;
 import com.example.patisserie.services.UtilisateurService.SocialLoginException;
@@ -17,6 +22,28 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<String> handleBadRequestException(BadRequestException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<String> handleConflictException(ConflictException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceSaturatedException.class)
+    public ResponseEntity<String> handleServiceSaturatedException(ServiceSaturatedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(AdminTicketRequiredException.class)
+    public ResponseEntity<String> handleAdminTicketRequiredException(AdminTicketRequiredException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.FORBIDDEN);
+    }
+
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<String> handleEmailAlreadyExistsException(EmailAlreadyExistsException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
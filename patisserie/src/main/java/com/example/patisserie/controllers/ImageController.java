@@ -0,0 +1,214 @@
+package com.example.patisserie.controllers;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import com.example.patisserie.services.ImageFileService;
+import com.example.patisserie.services.ImageFileService.ImageFile;
+import com.example.patisserie.services.ImageStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sert les images de public/images sans copie dans le tas : sendfile de Tomcat
+ * quand le connecteur le permet, FileChannel.transferTo sinon.
+ * Gère Range (une plage), If-None-Match / If-Modified-Since / If-Range avec des
+ * ETag forts, et les versions .br / .gz précompressées selon Accept-Encoding.
+ */
+@RestController
+@RequestMapping("/images")
+public class ImageController {
+
+    // Attributs de requête de Tomcat pour l'envoi par sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // En dessous, une écriture classique coûte moins cher que de passer la main au poller sendfile
+    private static final long SEUIL_SENDFILE = 48 * 1024;
+
+    private static final String CACHE_IMMUABLE =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+    private static final String CACHE_DEFAUT = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic().getHeaderValue();
+
+    @Autowired
+    private ImageFileService imageFileService;
+
+    @RequestMapping(value = "/**", method = { RequestMethod.GET, RequestMethod.HEAD })
+    public void servirImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        String relatif = UriUtils.decode(uri.substring("/images/".length()), StandardCharsets.UTF_8);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        ImageFile image = imageFileService.resolve(relatif,
+                accepte(acceptEncoding, "br"), accepte(acceptEncoding, "gzip"));
+        if (image == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, image.getEtag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, image.getDateModification());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, uri.startsWith(ImageStore.URL_PREFIX) ? CACHE_IMMUABLE : CACHE_DEFAUT);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (nonModifie(request, image)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long debut = 0;
+        long fin = image.getTaille();
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && plageApplicable(request, image)) {
+            long[] plage = plage(range, image.getTaille());
+            if (plage == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.getTaille());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (plage.length == 2) {
+                debut = plage[0];
+                fin = plage[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + debut + "-" + (fin - 1) + "/" + image.getTaille());
+            }
+        }
+
+        response.setContentType(image.getContentType().toString());
+        if (image.getEncodage() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, image.getEncodage());
+        }
+        response.setContentLengthLong(fin - debut);
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || fin == debut) {
+            return;
+        }
+
+        if (fin - debut >= SEUIL_SENDFILE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat envoie le fichier lui-même, du cache disque vers la socket
+            request.setAttribute(SENDFILE_FILENAME, image.getChemin().toString());
+            request.setAttribute(SENDFILE_START, debut);
+            request.setAttribute(SENDFILE_END, fin);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(image.getChemin(), StandardOpenOption.READ)) {
+            WritableByteChannel sortie = Channels.newChannel(response.getOutputStream());
+            long position = debut;
+            while (position < fin) {
+                position += canal.transferTo(position, fin - position, sortie);
+            }
+        }
+    }
+
+    private static boolean nonModifie(HttpServletRequest request, ImageFile image) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String etag : ifNoneMatch.split(",")) {
+                String valeur = etag.trim();
+                if (valeur.equals("*") || valeur.equals(image.getEtag()) || valeur.equals("W/" + image.getEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && image.getDateModification() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range : la plage n'est servie que si la représentation du client est encore la bonne
+    private static boolean plageApplicable(HttpServletRequest request, ImageFile image) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(image.getEtag());
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && image.getDateModification() / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String nom) {
+        try {
+            return request.getDateHeader(nom);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Plage unique "bytes=a-b", "bytes=a-" ou "bytes=-n".
+     * Renvoie {debut, fin exclusive}, un tableau vide pour ignorer l'en-tête
+     * (syntaxe inconnue, plages multiples), null si la plage est hors du fichier.
+     */
+    private static long[] plage(String range, long taille) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int tiret = spec.indexOf('-');
+        if (tiret < 0) {
+            return new long[0];
+        }
+        try {
+            String gauche = spec.substring(0, tiret).trim();
+            String droite = spec.substring(tiret + 1).trim();
+            long debut;
+            long fin;
+            if (gauche.isEmpty()) {
+                long suffixe = Long.parseLong(droite);
+                if (suffixe <= 0) {
+                    return null;
+                }
+                debut = Math.max(0, taille - suffixe);
+                fin = taille;
+            } else {
+                debut = Long.parseLong(gauche);
+                fin = droite.isEmpty() ? taille : Math.min(taille, Long.parseLong(droite) + 1);
+            }
+            if (debut >= taille || debut >= fin) {
+                return null;
+            }
+            return new long[] { debut, fin };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean accepte(String acceptEncoding, String encodage) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String element : acceptEncoding.split(",")) {
+            String[] parties = element.trim().split(";");
+            if (!parties[0].trim().equalsIgnoreCase(encodage)) {
+                continue;
+            }
+            for (int i = 1; i < parties.length; i++) {
+                String parametre = parties[i].trim().replace(" ", "");
+                if (parametre.equals("q=0") || parametre.matches("q=0\\.0*")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.patisserie.dto.ResetPasswordRequest;
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.exceptions.ServiceSaturatedException;
 import com.example.patisserie.services.PasswordResetService;
 
 @RestController
@@ -40,6 +42,9 @@ public class PasswordResetController {
         try {
             passwordResetService.resetPassword(request.getToken(), request.getNewPassword());
             return ResponseEntity.ok(Map.of("message", "Mot de passe réinitialisé avec succès !"));
+        } catch (ServiceSaturatedException | BadRequestException e) {
+            // 503 + Retry-After (pool BCrypt saturé, le token reste valable) ou 400 (token invalide, expiré)
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("message", "Erreur lors de la réinitialisation du mot de passe."));
         }
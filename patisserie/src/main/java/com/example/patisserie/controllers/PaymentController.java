@@ -3,10 +3,14 @@ package com.example.patisserie.controllers;
 import com.example.patisserie.models.Payment;
 import com.example.patisserie.services.PaymentService;
 import com.example.patisserie.services.EmailService;
+import com.example.patisserie.services.ApiFormats;
+import com.example.patisserie.services.EntityStreamingService;
 import com.example.patisserie.dto.PaymentRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -22,6 +26,12 @@ public class PaymentController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private EntityStreamingService entityStreamingService;
+
+    @Autowired
+    private ApiFormats apiFormats;
+
     @PostMapping("/process/mobile")
     public ResponseEntity<?> processMobilePayment(@RequestBody PaymentRequest paymentRequest) {
         try {
@@ -29,7 +39,8 @@ public class PaymentController {
             String phoneNumber = paymentRequest.getPhoneNumber();
             Double amount = paymentRequest.getAmount(); // Ensure amount is correctly parsed as Double
 
-            Payment payment = paymentService.processMobilePayment(operator, phoneNumber, amount);
+            Payment payment = paymentService.processMobilePayment(operator, phoneNumber, amount,
+                    paymentRequest.getOrderItems());
 
             if (payment != null && payment.isSuccessful()) {
                 String receiptNumber = generateReceiptNumber();
@@ -119,4 +130,15 @@ public class PaymentController {
         List<Payment> payments = paymentService.getAllPayments();
         return ResponseEntity.ok(payments);
     }
+
+    // Même liste, écrite au fil de la lecture en base (mémoire constante quel que soit le volume)
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPayments(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ApiFormats.Format format = apiFormats.negocier(accept);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(out -> entityStreamingService.ecrire(paymentService::streamAllPayments, out, format));
+    }
 }
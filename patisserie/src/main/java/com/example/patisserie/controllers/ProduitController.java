@@ -1,18 +1,33 @@
 package com.example.patisserie.controllers;
 
+import com.example.patisserie.dto.CategoryFacet;
+import com.example.patisserie.dto.ProduitBatch;
+import com.example.patisserie.dto.ProduitBatchRequest;
+import com.example.patisserie.dto.ProduitChanges;
+import com.example.patisserie.dto.ProduitPage;
+import com.example.patisserie.dto.ProduitSuggestion;
+import com.example.patisserie.exceptions.BadRequestException;
 import com.example.patisserie.models.Produit;
+import com.example.patisserie.services.ApiFormats;
+import com.example.patisserie.services.CatalogSnapshotService;
+import com.example.patisserie.services.ImageStore;
+import com.example.patisserie.services.EntityStreamingService;
+import com.example.patisserie.services.ProduitBatchLoader;
+import com.example.patisserie.services.ProduitChangeFeedService;
+import com.example.patisserie.services.ProduitFacetService;
 import com.example.patisserie.services.ProduitService;
+import com.example.patisserie.services.ProduitSuggestionTrie;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 @RestController
@@ -23,6 +38,30 @@ public class ProduitController {
     @Autowired
     private ProduitService produitService;
 
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ProduitSuggestionTrie produitSuggestionTrie;
+
+    @Autowired
+    private ProduitFacetService produitFacetService;
+
+    @Autowired
+    private ProduitBatchLoader produitBatchLoader;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private EntityStreamingService entityStreamingService;
+
+    @Autowired
+    private ApiFormats apiFormats;
+
+    @Autowired
+    private ProduitChangeFeedService produitChangeFeedService;
+
     // Ajouter un produit avec une image
     @PostMapping(consumes = "multipart/form-data")
     public ResponseEntity<Produit> addProduit(
@@ -43,11 +82,40 @@ public class ProduitController {
         return ResponseEntity.ok(newProduit);
     }
 
-    // Récupérer tous les produits
+    // Récupérer tous les produits (snapshot pré-sérialisé en JSON, CBOR ou Smile selon Accept,
+    // 304 si le catalogue n'a pas changé)
     @GetMapping
-    public ResponseEntity<List<Produit>> getAllProduits() {
-        List<Produit> produits = produitService.getAllProduits();
-        return ResponseEntity.ok(produits);
+    public ResponseEntity<byte[]> getAllProduits(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                 WebRequest request, HttpServletResponse response) {
+        ApiFormats.Format format = apiFormats.negocier(accept);
+        CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.getSnapshot();
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (request.checkNotModified(snapshot.getEtag(format))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag(format))
+                .contentType(format.getMediaType())
+                .body(catalogSnapshotService.getBytes(snapshot, format));
+    }
+
+    // Catalogue lu directement en base et écrit au fil de l'eau, sans passer par le snapshot
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllProduits(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ApiFormats.Format format = apiFormats.negocier(accept);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(out -> entityStreamingService.ecrire(produitService::streamAllProduits, out, format));
+    }
+
+    // Changements du catalogue depuis une version (produits modifiés et ids supprimés) ;
+    // since=0 pour une première synchronisation, puis la version renvoyée
+    @GetMapping("/changes")
+    public ResponseEntity<ProduitChanges> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                     @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(produitChangeFeedService.getChanges(since, limit));
     }
 
     // Récupérer un produit par son ID
@@ -57,6 +125,17 @@ public class ProduitController {
         return ResponseEntity.ok(produit);
     }
 
+    // Récupérer plusieurs produits en une requête (panier, commande) ; les ids inconnus sont listés dans "missing"
+    @PostMapping("/batch")
+    public ResponseEntity<ProduitBatch> getProduitsBatch(@RequestBody ProduitBatchRequest request) {
+        return ResponseEntity.ok(produitBatchLoader.getProduits(request.getIds()));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<ProduitBatch> getProduitsBatch(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(produitBatchLoader.getProduits(ids));
+    }
+
     // Mettre à jour un produit
 @PutMapping(value = "/{id}", consumes = "multipart/form-data")
 public ResponseEntity<Produit> updateProduit(
@@ -74,12 +153,7 @@ public ResponseEntity<Produit> updateProduit(
     produit.setCategory(category);
 
     if (file != null && !file.isEmpty()) {
-        String categoryFolder = produit.getCategory();
-        String fileName = file.getOriginalFilename();
-        Path filePath = Paths.get("public/images/" + categoryFolder + "/" + fileName);
-        Files.createDirectories(filePath.getParent());
-        Files.write(filePath, file.getBytes());
-        produit.setImage("/images/" + categoryFolder + "/" + fileName);
+        produit.setImage(imageStore.store(file));
     }
 
     Produit updatedProduit = produitService.updateProduit(id, produit);
@@ -94,27 +168,63 @@ public ResponseEntity<Produit> updateProduit(
         return ResponseEntity.ok("Produit supprimé avec succès !");
     }
 
-    // Rechercher des produits par nom (avec pagination)
+    // Rechercher des produits (tolérant aux accents et fautes de frappe, avec pagination)
     @GetMapping("/search")
     public ResponseEntity<List<Produit>> searchProduits(
             @RequestParam String keyword,
-            @RequestParam int page,
-            @RequestParam int size) {
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            throw new BadRequestException("Pagination invalide");
+        }
         List<Produit> produits = produitService.searchProduits(keyword, page, size);
         return ResponseEntity.ok(produits);
     }
 
-    // Obtenir les statistiques (les produits les plus commandés)
+    // Autocomplétion sur le nom des produits, les plus commandés en premier
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProduitSuggestion>> suggestProduits(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        int max = Math.max(1, Math.min(limit, ProduitSuggestionTrie.MAX_SUGGESTIONS));
+        return ResponseEntity.ok(produitSuggestionTrie.suggest(prefix, max));
+    }
+
+    // Nombre de produits et fourchette de prix par catégorie, éventuellement limités à une recherche
+    @GetMapping("/facets")
+    public ResponseEntity<List<CategoryFacet>> getFacettes(@RequestParam(required = false) String q) {
+        return ResponseEntity.ok(produitFacetService.getFacettes(q));
+    }
+
+    // Obtenir les statistiques (les produits les plus commandés, par catégorie et sur N jours en option)
     @GetMapping("/statistiques")
-    public ResponseEntity<List<Produit>> getTopProduits() {
-        List<Produit> produits = produitService.getTopProduits();
+    public ResponseEntity<List<Produit>> getTopProduits(@RequestParam(required = false) String category,
+                                                       @RequestParam(required = false) Integer jours) {
+        List<Produit> produits = produitService.getTopProduits(category, jours);
         return ResponseEntity.ok(produits);
     }
 
+    // Parcourir le catalogue par curseur (tri "categorie" ou "popularite", filtre de catégorie optionnel)
+    @GetMapping("/scroll")
+    public ResponseEntity<ProduitPage> scrollProduits(
+            @RequestParam(defaultValue = "categorie") String sort,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > 100) {
+            throw new BadRequestException("La taille de page doit être comprise entre 1 et 100");
+        }
+        return ResponseEntity.ok(produitService.scrollProduits(sort, category, cursor, size));
+    }
+
     @GetMapping("/produits/top")
     public List<Produit> getProduitsLesPlusCommandes(@RequestParam(defaultValue = "0") int page,
-                                                    @RequestParam(defaultValue = "5") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return produitService.getProduitsLesPlusCommandes(pageable);
+                                                    @RequestParam(defaultValue = "5") int size,
+                                                    @RequestParam(required = false) String category,
+                                                    @RequestParam(required = false) Integer jours) {
+        if (page < 0 || size < 1 || size > 100) {
+            throw new BadRequestException("Pagination invalide");
+        }
+        return produitService.getProduitsLesPlusCommandes(category, jours, page, size);
     }
 }
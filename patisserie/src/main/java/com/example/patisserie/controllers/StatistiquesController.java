@@ -0,0 +1,77 @@
+package com.example.patisserie.controllers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.RevenueRollup;
+import com.example.patisserie.models.RevenueRollup.Dimension;
+import com.example.patisserie.models.RevenueRollup.Granularite;
+import com.example.patisserie.security.AdminTicketService;
+import com.example.patisserie.services.RevenueRollupService;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/statistiques")
+public class StatistiquesController {
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private AdminTicketService adminTicketService;
+
+    // Chiffre d'affaires total
+    @GetMapping("/revenus")
+    public ResponseEntity<?> getRevenuTotal() {
+        return ResponseEntity.ok(Map.of("total", revenueRollupService.getRevenuTotal()));
+    }
+
+    // Chiffre d'affaires cumulé par produit (cle = id du produit)
+    @GetMapping("/revenus/produits")
+    public ResponseEntity<List<RevenueRollup>> getRevenusParProduit() {
+        return ResponseEntity.ok(revenueRollupService.getRevenusCumules(Dimension.PRODUIT));
+    }
+
+    // Chiffre d'affaires cumulé par catégorie
+    @GetMapping("/revenus/categories")
+    public ResponseEntity<List<RevenueRollup>> getRevenusParCategorie() {
+        return ResponseEntity.ok(revenueRollupService.getRevenusCumules(Dimension.CATEGORIE));
+    }
+
+    // Série par heure ou par jour, pour le total ou pour un produit / une catégorie
+    @GetMapping("/revenus/serie")
+    public ResponseEntity<List<RevenueRollup>> getSerie(
+            @RequestParam(defaultValue = "JOUR") Granularite granularite,
+            @RequestParam(defaultValue = "TOTAL") Dimension dimension,
+            @RequestParam(defaultValue = RevenueRollupService.CLE_TOTAL) String cle,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin) {
+        if (granularite == Granularite.CUMUL) {
+            throw new BadRequestException("Granularité HEURE ou JOUR attendue");
+        }
+        return ResponseEntity.ok(revenueRollupService.getSerie(dimension, cle, granularite, debut, fin));
+    }
+
+    // Recalcule les agrégats depuis l'historique des paiements ; admin, une reconstruction à la fois (409 sinon)
+    @PostMapping("/revenus/rebuild")
+    public ResponseEntity<?> rebuild(@RequestHeader(value = AdminTicketService.HEADER, required = false) String ticket,
+                                     Authentication authentication) {
+        adminTicketService.exiger(ticket, authentication);
+        long paiements = revenueRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("paiements", paiements));
+    }
+}
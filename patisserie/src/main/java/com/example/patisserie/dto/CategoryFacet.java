@@ -0,0 +1,48 @@
+package com.example.patisserie.dto;
+
+public class CategoryFacet {
+
+    private String category;
+    private long count;
+    private double prixMin;
+    private double prixMax;
+
+    public CategoryFacet(String category, long count, double prixMin, double prixMax) {
+        this.category = category;
+        this.count = count;
+        this.prixMin = prixMin;
+        this.prixMax = prixMax;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getPrixMin() {
+        return prixMin;
+    }
+
+    public void setPrixMin(double prixMin) {
+        this.prixMin = prixMin;
+    }
+
+    public double getPrixMax() {
+        return prixMax;
+    }
+
+    public void setPrixMax(double prixMax) {
+        this.prixMax = prixMax;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.patisserie.dto;
+
+// Article commandé : le prix est relu côté serveur, seuls l'id et la quantité viennent du client
+public class OrderItemRequest {
+
+    private Long produitId;
+    private Integer quantity;
+
+    public OrderItemRequest() {
+    }
+
+    public OrderItemRequest(Long produitId, Integer quantity) {
+        this.produitId = produitId;
+        this.quantity = quantity;
+    }
+
+    public Long getProduitId() {
+        return produitId;
+    }
+
+    public void setProduitId(Long produitId) {
+        this.produitId = produitId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.patisserie.dto;
 
+import java.util.List;
+
 public class PaymentRequest {
     private String operator;
     private String phoneNumber;
     private Double amount;
+    private List<OrderItemRequest> orderItems;
 
     // Getters and Setters
     public String getOperator() {
@@ -29,4 +32,12 @@ public class PaymentRequest {
     public void setAmount(Double amount) {
         this.amount = amount;
     }
+
+    public List<OrderItemRequest> getOrderItems() {
+        return orderItems;
+    }
+
+    public void setOrderItems(List<OrderItemRequest> orderItems) {
+        this.orderItems = orderItems;
+    }
 }
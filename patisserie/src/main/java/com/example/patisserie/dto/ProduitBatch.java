@@ -0,0 +1,34 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+import com.example.patisserie.models.Produit;
+
+public class ProduitBatch {
+
+    // Dans l'ordre des ids demandés, sans doublons
+    private List<Produit> produits;
+    // Ids demandés qui n'existent pas (produit supprimé depuis l'ajout au panier, par exemple)
+    private List<Long> missing;
+
+    public ProduitBatch(List<Produit> produits, List<Long> missing) {
+        this.produits = produits;
+        this.missing = missing;
+    }
+
+    public List<Produit> getProduits() {
+        return produits;
+    }
+
+    public void setProduits(List<Produit> produits) {
+        this.produits = produits;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Long> missing) {
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+public class ProduitBatchRequest {
+
+    private List<Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
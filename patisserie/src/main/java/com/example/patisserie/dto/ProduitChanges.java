@@ -0,0 +1,67 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+import com.example.patisserie.models.Produit;
+
+public class ProduitChanges {
+
+    // Version à renvoyer dans "since" au prochain appel
+    private long version;
+    // Produits créés ou modifiés depuis "since", par version croissante
+    private List<Produit> produits;
+    // Ids des produits supprimés depuis "since"
+    private List<Long> deleted;
+    // D'autres changements restent à lire : rappeler aussitôt avec la nouvelle version
+    private boolean hasMore;
+    // "since" est trop ancien (tombstones purgées) ou inconnu : recharger le catalogue complet
+    private boolean resync;
+
+    public ProduitChanges(long version, List<Produit> produits, List<Long> deleted, boolean hasMore, boolean resync) {
+        this.version = version;
+        this.produits = produits;
+        this.deleted = deleted;
+        this.hasMore = hasMore;
+        this.resync = resync;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<Produit> getProduits() {
+        return produits;
+    }
+
+    public void setProduits(List<Produit> produits) {
+        this.produits = produits;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+}
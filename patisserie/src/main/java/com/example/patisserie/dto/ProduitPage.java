@@ -0,0 +1,33 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+import com.example.patisserie.models.Produit;
+
+public class ProduitPage {
+
+    private List<Produit> items;
+    // Curseur opaque à renvoyer pour obtenir la page suivante, null sur la dernière page
+    private String nextCursor;
+
+    public ProduitPage(List<Produit> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Produit> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Produit> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+import com.example.patisserie.models.Role;
+
+// Fiche d'édition d'un utilisateur (admin) : les champs modifiables par update-user, rien d'autre
+public class UtilisateurFiche {
+
+    private Long id;
+    private String nom;
+    private String email;
+    private String telephone;
+    private String adresse;
+    private List<Role> roles;
+
+    public UtilisateurFiche(Long id, String nom, String email, String telephone, String adresse, List<Role> roles) {
+        this.id = id;
+        this.nom = nom;
+        this.email = email;
+        this.telephone = telephone;
+        this.adresse = adresse;
+        this.roles = roles;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getTelephone() {
+        return telephone;
+    }
+
+    public void setTelephone(String telephone) {
+        this.telephone = telephone;
+    }
+
+    public String getAdresse() {
+        return adresse;
+    }
+
+    public void setAdresse(String adresse) {
+        this.adresse = adresse;
+    }
+
+    public List<Role> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<Role> roles) {
+        this.roles = roles;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+public class UtilisateurPage {
+
+    private List<UtilisateurResume> items;
+    // Curseur à renvoyer pour obtenir la page suivante, null sur la dernière page
+    private String nextCursor;
+
+    public UtilisateurPage(List<UtilisateurResume> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UtilisateurResume> getItems() {
+        return items;
+    }
+
+    public void setItems(List<UtilisateurResume> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.patisserie.dto;
+
+import java.util.List;
+
+import com.example.patisserie.models.Role;
+
+// Ligne de l'annuaire des utilisateurs : ni mot de passe, ni jetons, ni coordonnées
+public class UtilisateurResume {
+
+    private Long id;
+    private String nom;
+    private String email;
+    private List<Role> roles;
+
+    public UtilisateurResume(Long id, String nom, String email, List<Role> roles) {
+        this.id = id;
+        this.nom = nom;
+        this.email = email;
+        this.roles = roles;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<Role> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<Role> roles) {
+        this.roles = roles;
+    }
+}
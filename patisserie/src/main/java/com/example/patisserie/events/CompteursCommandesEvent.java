@@ -0,0 +1,24 @@
+package com.example.patisserie.events;
+
+import java.util.Map;
+
+/**
+ * Publié par OrderCounterService, au plus une fois par intervalle, avec les
+ * compteurCommandes écrits en base depuis la publication précédente.
+ * Seuls les classements (top des ventes, poids des suggestions) l'écoutent :
+ * un compteur qui avance n'est pas une écriture sur le catalogue et ne doit
+ * invalider ni le snapshot ni le flux de changements.
+ */
+public class CompteursCommandesEvent {
+
+    // id produit -> compteurCommandes en base
+    private final Map<Long, Integer> compteurs;
+
+    public CompteursCommandesEvent(Map<Long, Integer> compteurs) {
+        this.compteurs = Map.copyOf(compteurs);
+    }
+
+    public Map<Long, Integer> getCompteurs() {
+        return compteurs;
+    }
+}
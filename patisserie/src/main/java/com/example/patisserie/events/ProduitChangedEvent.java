@@ -0,0 +1,47 @@
+package com.example.patisserie.events;
+
+import java.util.List;
+
+import com.example.patisserie.models.Produit;
+
+/**
+ * Publié par ProduitService à chaque écriture sur le catalogue.
+ * Les vues en mémoire (snapshot, index, ...) l'écoutent après le commit.
+ */
+public class ProduitChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final List<Produit> produits;
+
+    public ProduitChangedEvent(Type type, List<Produit> produits) {
+        this.type = type;
+        this.produits = List.copyOf(produits);
+    }
+
+    public static ProduitChangedEvent created(Produit produit) {
+        return new ProduitChangedEvent(Type.CREATED, List.of(produit));
+    }
+
+    public static ProduitChangedEvent updated(Produit produit) {
+        return new ProduitChangedEvent(Type.UPDATED, List.of(produit));
+    }
+
+    public static ProduitChangedEvent deleted(Produit produit) {
+        return new ProduitChangedEvent(Type.DELETED, List.of(produit));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // Pour DELETED : le dernier état connu du produit supprimé
+    public List<Produit> getProduits() {
+        return produits;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.patisserie.exceptions;
+
+/**
+ * Action d'administration sans ticket d'élévation valide (voir AdminTicketService) :
+ * renvoyée en 403, le client doit refaire la vérification du mot de passe admin.
+ */
+public class AdminTicketRequiredException extends RuntimeException {
+    public AdminTicketRequiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.patisserie.exceptions;
+
+/**
+ * Paramètre de requête invalide (curseur, pagination, filtre, token) : renvoyée
+ * en 400 avec son message, écrit pour le client. Les autres exceptions, y compris
+ * IllegalArgumentException, restent des erreurs serveur.
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
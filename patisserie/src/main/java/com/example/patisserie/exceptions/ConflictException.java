@@ -0,0 +1,11 @@
+package com.example.patisserie.exceptions;
+
+/**
+ * Opération refusée parce qu'une autre, incompatible, est déjà en cours
+ * (reconstruction des agrégats par exemple) : renvoyée en 409 avec son message.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
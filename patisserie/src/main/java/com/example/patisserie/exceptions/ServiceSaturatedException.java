@@ -0,0 +1,19 @@
+package com.example.patisserie.exceptions;
+
+/**
+ * Ressource limitée (pool de calcul, file d'attente) saturée : la requête est
+ * refusée tout de suite plutôt que d'attendre. Renvoyée en 503 avec Retry-After.
+ */
+public class ServiceSaturatedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceSaturatedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.patisserie.models;
+
+import jakarta.persistence.*;
+
+/**
+ * Compteur de versions du catalogue (une seule ligne, id = 1).
+ * Incrémenté par UPDATE dans la transaction de chaque écriture : le verrou de
+ * ligne, tenu jusqu'au commit, sérialise les écrivains, si bien que les versions
+ * deviennent visibles dans l'ordre croissant.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+
+    @Id
+    private Integer id;
+
+    // Dernière version attribuée
+    @Column(nullable = false)
+    private long version;
+
+    // Plus haute version de tombstone purgée : un client resté en dessous doit tout recharger
+    @Column(nullable = false)
+    private long versionPurgee;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getVersionPurgee() {
+        return versionPurgee;
+    }
+
+    public void setVersionPurgee(long versionPurgee) {
+        this.versionPurgee = versionPurgee;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.patisserie.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Token à usage unique (réinitialisation du mot de passe, confirmation d'email).
+ * Seule l'empreinte SHA-256 du token est stockée : une fuite de la table ne
+ * donne aucun token utilisable. La ligne est supprimée à l'utilisation, ou par
+ * la purge une fois expirée.
+ */
+@Entity
+@Table(name = "one_shot_token", indexes = {
+        @Index(name = "idx_one_shot_token_empreinte", columnList = "empreinte", unique = true),
+        @Index(name = "idx_one_shot_token_utilisateur", columnList = "utilisateur_id, type"),
+        @Index(name = "idx_one_shot_token_expiration", columnList = "expiration_date")
+})
+public class OneShotToken {
+
+    public enum Type {
+        PASSWORD_RESET,
+        EMAIL_CONFIRMATION
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    // SHA-256 du token, en base64url
+    @Column(nullable = false, length = 43)
+    private String empreinte;
+
+    // Pas de clé étrangère : supprimer un utilisateur n'attend pas la purge de ses tokens
+    @Column(name = "utilisateur_id", nullable = false)
+    private Long utilisateurId;
+
+    @Column(name = "expiration_date", nullable = false)
+    private LocalDateTime expirationDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public Long getUtilisateurId() {
+        return utilisateurId;
+    }
+
+    public void setUtilisateurId(Long utilisateurId) {
+        this.utilisateurId = utilisateurId;
+    }
+
+    public LocalDateTime getExpirationDate() {
+        return expirationDate;
+    }
+
+    public void setExpirationDate(LocalDateTime expirationDate) {
+        this.expirationDate = expirationDate;
+    }
+}
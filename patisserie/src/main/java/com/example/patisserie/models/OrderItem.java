@@ -2,6 +2,7 @@ package com.example.patisserie.models;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Data
@@ -16,6 +17,8 @@ public class OrderItem {
     private Integer quantity;
     private Double price;
 
+    // Référence arrière : ne pas la sérialiser (Payment -> orderItems -> payment -> ...)
+    @JsonIgnore
     @ManyToOne
     private Payment payment;
 }
@@ -3,6 +3,10 @@ package com.example.patisserie.models;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_produit_category_id", columnList = "category, id"),
+    @Index(name = "idx_produit_compteur_id", columnList = "compteur_commandes, id")
+})
 public class Produit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,11 +17,17 @@ public class Produit {
     private String image;
     private String description;
 
+    // Variantes redimensionnées de l'image, renseignées par ImageVariantService (null tant qu'elles ne sont pas prêtes)
+    private String imageThumbnail;
+    private String imageMedium;
+    private String imageFull;
+
 
     private String category;
     
 
-    @Column(name = "compteur_commandes", nullable = false)
+    // Écrit uniquement par OrderCounterService (incréments en batch), jamais par un update d'entité
+    @Column(name = "compteur_commandes", nullable = false, updatable = false)
     private int compteurCommandes = 0;
 
     // Getters et Setters
@@ -53,6 +63,30 @@ public class Produit {
         this.image = image;
     }
 
+    public String getImageThumbnail() {
+        return imageThumbnail;
+    }
+
+    public void setImageThumbnail(String imageThumbnail) {
+        this.imageThumbnail = imageThumbnail;
+    }
+
+    public String getImageMedium() {
+        return imageMedium;
+    }
+
+    public void setImageMedium(String imageMedium) {
+        this.imageMedium = imageMedium;
+    }
+
+    public String getImageFull() {
+        return imageFull;
+    }
+
+    public void setImageFull(String imageFull) {
+        this.imageFull = imageFull;
+    }
+
     public String getDescription() {
         return description;
     }
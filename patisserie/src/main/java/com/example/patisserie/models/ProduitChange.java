@@ -0,0 +1,61 @@
+package com.example.patisserie.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Journal des changements du catalogue, compacté : une seule ligne par produit,
+ * portant la version de sa dernière écriture. Un produit supprimé garde sa ligne
+ * (tombstone) jusqu'à la purge, pour que les clients en retard l'apprennent.
+ */
+@Entity
+@Table(name = "produit_change", indexes = @Index(
+        name = "idx_produit_change_version", columnList = "version", unique = true))
+public class ProduitChange {
+
+    // Pas de clé étrangère : la ligne survit à la suppression du produit
+    @Id
+    private Long produitId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private boolean supprime;
+
+    @Column(nullable = false)
+    private LocalDateTime dateChangement;
+
+    public Long getProduitId() {
+        return produitId;
+    }
+
+    public void setProduitId(Long produitId) {
+        this.produitId = produitId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isSupprime() {
+        return supprime;
+    }
+
+    public void setSupprime(boolean supprime) {
+        this.supprime = supprime;
+    }
+
+    public LocalDateTime getDateChangement() {
+        return dateChangement;
+    }
+
+    public void setDateChangement(LocalDateTime dateChangement) {
+        this.dateChangement = dateChangement;
+    }
+}
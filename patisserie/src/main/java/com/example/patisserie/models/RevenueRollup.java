@@ -0,0 +1,110 @@
+package com.example.patisserie.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Chiffre d'affaires pré-agrégé : une ligne par (dimension, clé, granularité, début de période).
+ * Alimenté à chaque paiement validé avec les prix réellement payés.
+ */
+@Entity
+@Table(name = "revenue_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_revenue_rollup_bucket",
+        columnNames = {"dimension", "cle", "granularite", "debut"}))
+public class RevenueRollup {
+
+    public enum Dimension {
+        TOTAL,
+        PRODUIT,
+        CATEGORIE
+    }
+
+    public enum Granularite {
+        HEURE,
+        JOUR,
+        // Une seule période depuis le début de l'historique
+        CUMUL
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dimension dimension;
+
+    // Id du produit, nom de la catégorie, ou "*" pour le total
+    @Column(nullable = false)
+    private String cle;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularite granularite;
+
+    @Column(nullable = false)
+    private LocalDateTime debut;
+
+    @Column(nullable = false)
+    private double montant;
+
+    @Column(nullable = false)
+    private long quantite;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(Dimension dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    public Granularite getGranularite() {
+        return granularite;
+    }
+
+    public void setGranularite(Granularite granularite) {
+        this.granularite = granularite;
+    }
+
+    public LocalDateTime getDebut() {
+        return debut;
+    }
+
+    public void setDebut(LocalDateTime debut) {
+        this.debut = debut;
+    }
+
+    public double getMontant() {
+        return montant;
+    }
+
+    public void setMontant(double montant) {
+        this.montant = montant;
+    }
+
+    public long getQuantite() {
+        return quantite;
+    }
+
+    public void setQuantite(long quantite) {
+        this.quantite = quantite;
+    }
+}
@@ -1,18 +1,28 @@
 package com.example.patisserie.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import jakarta.persistence.*;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
+// Un compte par email : la contrainte (et son index) arbitre les inscriptions concurrentes.
+// L'email est stocké normalisé (minuscules, sans espaces) : la contrainte ignore donc la casse.
+@Table(uniqueConstraints = @UniqueConstraint(name = Utilisateur.CONTRAINTE_EMAIL, columnNames = "email"))
 public class Utilisateur {
 
+    public static final String CONTRAINTE_EMAIL = "uk_utilisateur_email";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String nom;
     private String email;
+    // Accepté en entrée, jamais renvoyé dans une réponse
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String motDePasse;
     private String telephone;
     private String adresse;
@@ -33,9 +43,6 @@ public class Utilisateur {
     @Column(name = "email_verified")
     private boolean emailVerified = false;
 
-    @Column(name = "confirmation_token")
-    private String confirmationToken;
-
     // Add getters and setters for new fields
     public String getProvider() {
         return provider;
@@ -61,13 +68,6 @@ public class Utilisateur {
         this.emailVerified = emailVerified;
     }
 
-    public String getConfirmationToken() {
-        return confirmationToken;
-    }
-
-    public void setConfirmationToken(String confirmationToken) {
-        this.confirmationToken = confirmationToken;
-    }
     
     public Long getId() {
         return id;
@@ -90,7 +90,12 @@ public class Utilisateur {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        this.email = normaliserEmail(email);
+    }
+
+    // Forme stockée d'un email ; les recherches par email appliquent la même
+    public static String normaliserEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getMotDePasse() {
@@ -0,0 +1,35 @@
+package com.example.patisserie.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.patisserie.models.OneShotToken;
+
+@Repository
+public interface OneShotTokenRepository extends JpaRepository<OneShotToken, Long> {
+
+    Optional<OneShotToken> findByEmpreinte(String empreinte);
+
+    // Tokens encore valides (chargement du niveau en mémoire)
+    List<OneShotToken> findByExpirationDateAfter(LocalDateTime date);
+
+    // 1 pour le seul appel qui consomme le token, 0 pour les suivants
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OneShotToken t WHERE t.id = :id")
+    int supprimer(@Param("id") Long id);
+
+    // Un nouveau token remplace les précédents du même type
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OneShotToken t WHERE t.utilisateurId = :utilisateurId AND t.type = :type")
+    int supprimerPourUtilisateur(@Param("utilisateurId") Long utilisateurId, @Param("type") OneShotToken.Type type);
+}
@@ -1,16 +0,0 @@
-package com.example.patisserie.repositories;
-
-import java.time.LocalDateTime;
-import java.util.Optional;
-
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import com.example.patisserie.models.PasswordResetToken;
-
-@Repository
-public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
-    Optional<PasswordResetToken> findByToken(String token);
-
-    void deleteByExpirationDateBefore(LocalDateTime dateTime); // Supprime les tokens expirés
-}
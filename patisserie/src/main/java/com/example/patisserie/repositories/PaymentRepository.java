@@ -1,14 +1,33 @@
 package com.example.patisserie.repositories;
 
 import com.example.patisserie.models.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByCustomerIdOrderByPaymentDateDesc(Long customerId);
     Optional<Payment> findByReceiptNumber(String receiptNumber);
+
+    // Parcours par id croissant des paiements validés (reconstruction des agrégats de revenus)
+    @Query("SELECT p FROM Payment p WHERE p.status = 'COMPLETED' AND p.id > :id ORDER BY p.id ASC")
+    List<Payment> findCompletedAfter(@Param("id") Long id, Pageable pageable);
+
+    // Lecture en flux (curseur côté base), à consommer dans une transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p ORDER BY p.id")
+    Stream<Payment> streamAll();
 }
\ No newline at end of file
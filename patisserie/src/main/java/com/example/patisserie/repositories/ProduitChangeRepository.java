@@ -0,0 +1,23 @@
+package com.example.patisserie.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.patisserie.models.ProduitChange;
+
+@Repository
+public interface ProduitChangeRepository extends JpaRepository<ProduitChange, Long> {
+
+    @Query("SELECT c FROM ProduitChange c WHERE c.version > :version ORDER BY c.version ASC")
+    List<ProduitChange> findAfter(@Param("version") long version, Pageable pageable);
+
+    // Produits du catalogue qui n'ont pas encore de ligne dans le journal (antérieurs au journal)
+    @Query("SELECT p.id FROM Produit p WHERE NOT EXISTS " +
+           "(SELECT c FROM ProduitChange c WHERE c.produitId = p.id) ORDER BY p.id")
+    List<Long> findIdsSansChangement();
+}
@@ -1,15 +1,23 @@
 package com.example.patisserie.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.example.patisserie.models.Produit;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ProduitRepository extends JpaRepository<Produit, Long> {
     @Query("SELECT p FROM Produit p ORDER BY p.compteurCommandes DESC")
@@ -29,10 +37,51 @@ public interface ProduitRepository extends JpaRepository<Produit, Long> {
     // Page<Produit> result = produitRepository.findByNomContainingIgnoreCase("chocolat", pageable);
     // List<Produit> produits = result.getContent(); // Récupération des éléments.
 
-    @Query("SELECT p.nom, SUM(p.prix * p.compteurCommandes) FROM Produit p GROUP BY p.nom")
-    List<Object[]> getRevenusParProduit();
-    
-    @Query("SELECT SUM(p.prix * p.compteurCommandes) FROM Produit p")
-    Double getRevenusTotaux();
+    // Pagination par curseur (keyset) : on reprend après la dernière clé vue au lieu de sauter un offset.
+    // Ordre (category, id) ; les produits sans catégorie viennent ensuite (findSansCategorieApres) :
+    // sans disjonction sur IS NULL, la requête reste un parcours de l'index (category, id)
+    @Query("SELECT p FROM Produit p WHERE p.category > :category OR (p.category = :category AND p.id > :id) " +
+           "ORDER BY p.category ASC, p.id ASC")
+    List<Produit> findParCategorieApres(@Param("category") String category, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Produit p WHERE p.category IS NULL AND p.id > :id ORDER BY p.id ASC")
+    List<Produit> findSansCategorieApres(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Produit p WHERE p.category = :category AND p.id > :id ORDER BY p.id ASC")
+    List<Produit> findDansCategorieApres(@Param("category") String category, @Param("id") Long id, Pageable pageable);
+
+    // Ordre (compteurCommandes DESC, id DESC)
+    @Query("SELECT p FROM Produit p WHERE p.compteurCommandes < :compteur " +
+           "OR (p.compteurCommandes = :compteur AND p.id < :id) ORDER BY p.compteurCommandes DESC, p.id DESC")
+    List<Produit> findParPopulariteApres(@Param("compteur") int compteur, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Produit p WHERE p.category = :category AND (p.compteurCommandes < :compteur " +
+           "OR (p.compteurCommandes = :compteur AND p.id < :id)) ORDER BY p.compteurCommandes DESC, p.id DESC")
+    List<Produit> findDansCategorieParPopulariteApres(@Param("category") String category,
+                                                      @Param("compteur") int compteur,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    // Lecture en flux (curseur côté base), à consommer dans une transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Produit p ORDER BY p.id")
+    Stream<Produit> streamAll();
+
+    // Facettes : nombre de produits et fourchette de prix par catégorie
+    @Query("SELECT p.category, COUNT(p), MIN(p.prix), MAX(p.prix) FROM Produit p " +
+           "GROUP BY p.category ORDER BY p.category ASC NULLS LAST")
+    List<Object[]> agregerParCategorie();
+
+    // Compteurs de commandes (id, compteurCommandes), sans charger les produits
+    @Query("SELECT p.id, p.compteurCommandes FROM Produit p WHERE p.id IN :ids")
+    List<Object[]> findCompteursCommandes(@Param("ids") Collection<Long> ids);
+
+    // 1 si la ligne a été supprimée par cet appel, 0 si elle n'existait plus
+    @Modifying
+    @Query("DELETE FROM Produit p WHERE p.id = :id")
+    int supprimer(@Param("id") Long id);
 
 }
@@ -0,0 +1,22 @@
+package com.example.patisserie.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.patisserie.models.RevenueRollup;
+import com.example.patisserie.models.RevenueRollup.Dimension;
+import com.example.patisserie.models.RevenueRollup.Granularite;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, Long> {
+    List<RevenueRollup> findByDimensionAndGranulariteOrderByMontantDesc(Dimension dimension, Granularite granularite);
+
+    List<RevenueRollup> findByDimensionAndGranulariteAndDebutGreaterThanEqual(
+            Dimension dimension, Granularite granularite, LocalDateTime debut);
+
+    List<RevenueRollup> findByDimensionAndCleAndGranulariteAndDebutBetweenOrderByDebutAsc(
+            Dimension dimension, String cle, Granularite granularite, LocalDateTime debut, LocalDateTime fin);
+}
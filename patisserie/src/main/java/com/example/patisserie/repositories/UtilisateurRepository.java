@@ -1,16 +1,85 @@
 package com.example.patisserie.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.patisserie.models.RoleName;
 import com.example.patisserie.models.Utilisateur;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UtilisateurRepository extends JpaRepository<Utilisateur, Long> {
-    boolean existsByEmail(String email); // Vérifie l'existence par email
-    Optional<Utilisateur> findByEmail(String email); // Récupère un utilisateur par email
+    // Recherches par email sans distinction de casse : l'email est normalisé comme à l'écriture
+    default boolean existsByEmail(String email) {
+        return existsEmailNormalise(Utilisateur.normaliserEmail(email));
+    }
+
+    default Optional<Utilisateur> findByEmail(String email) {
+        return findParEmailNormalise(Utilisateur.normaliserEmail(email));
+    }
+
+    @Query("SELECT COUNT(u) > 0 FROM Utilisateur u WHERE u.email = :email")
+    boolean existsEmailNormalise(@Param("email") String email);
+
+    @Query("SELECT u FROM Utilisateur u WHERE u.email = :email")
+    Optional<Utilisateur> findParEmailNormalise(@Param("email") String email);
+
     Optional<Utilisateur> findByProviderAndProviderId(String provider, String providerId);
-    Optional<Utilisateur> findByConfirmationToken(String token);
+
+    // Emails seuls, en flux (chargement du filtre de Bloom des emails)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.email FROM Utilisateur u")
+    Stream<String> streamEmails();
+
+    // Noms des rôles seuls, sans charger l'utilisateur
+    default List<RoleName> findNomsRoles(String email) {
+        return findNomsRolesParEmailNormalise(Utilisateur.normaliserEmail(email));
+    }
+
+    @Query("SELECT r.name FROM Utilisateur u JOIN u.roles r WHERE u.email = :email")
+    List<RoleName> findNomsRolesParEmailNormalise(@Param("email") String email);
+
+    // Comptes enregistrés avant la normalisation des emails (majuscules ou espaces)
+    @Query("SELECT u.id FROM Utilisateur u WHERE u.email <> LOWER(TRIM(u.email))")
+    List<Long> findIdsEmailNonNormalise();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Utilisateur u SET u.email = :email WHERE u.id = :id")
+    int updateEmail(@Param("id") Long id, @Param("email") String email);
+
+    // Annuaire, étape 1 : une page d'ids par id croissant (keyset), filtres facultatifs
+    @Query("SELECT u.id FROM Utilisateur u WHERE u.id > :apres " +
+           "AND (:role IS NULL OR EXISTS (SELECT r FROM u.roles r WHERE r.name = :role)) " +
+           "AND (:prefixe IS NULL OR LOWER(u.email) LIKE :prefixe ESCAPE '\\') " +
+           "ORDER BY u.id")
+    List<Long> findIdsAnnuaire(@Param("apres") Long apres, @Param("role") RoleName role,
+                               @Param("prefixe") String prefixe, Pageable pageable);
+
+    // Annuaire, étape 2 : les utilisateurs de la page et leurs rôles en une seule requête
+    @Query("SELECT DISTINCT u FROM Utilisateur u LEFT JOIN FETCH u.roles WHERE u.id IN :ids ORDER BY u.id")
+    List<Utilisateur> findAvecRoles(@Param("ids") Collection<Long> ids);
+
+    // Remplace le hachage seulement s'il n'a pas changé entre-temps (changement de mot de passe concurrent)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Utilisateur u SET u.motDePasse = :nouveau WHERE u.id = :id AND u.motDePasse = :ancien")
+    int updateMotDePasse(@Param("id") Long id, @Param("ancien") String ancien, @Param("nouveau") String nouveau);
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.example.patisserie.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.example.patisserie.exceptions.AdminTicketRequiredException;
+
+/**
+ * Ticket d'élévation admin : émis après une vérification du mot de passe
+ * administrateur, il autorise les actions d'administration pendant quelques
+ * minutes sans nouveau calcul BCrypt. Vérifier un ticket ne coûte qu'un HMAC-SHA256.
+ *
+ * Format : base64url("id|email|expiration") + "." + base64url(hmac).
+ * Un ticket révoqué reste dans la liste de refus jusqu'à son expiration.
+ */
+@Component
+public class AdminTicketService {
+
+    public static final String HEADER = "X-Admin-Ticket";
+
+    private static final String ALGORITHME = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec cle;
+    private final long dureeMs;
+
+    // Mac n'est pas thread-safe : une instance par thread
+    private final ThreadLocal<Mac> macs;
+
+    // Ids des tickets révoqués -> expiration
+    private final Map<String, Long> revoques = new ConcurrentHashMap<>();
+
+    public AdminTicketService(@Value("${patisserie.admin-ticket.secret:}") String secret,
+                              @Value("${patisserie.admin-ticket.ttl-seconds:600}") long dureeSecondes) {
+        byte[] octets;
+        if (secret.isBlank()) {
+            // Clé propre à ce démarrage : les tickets ne survivent pas à un redémarrage
+            octets = new byte[32];
+            new SecureRandom().nextBytes(octets);
+        } else {
+            octets = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.cle = new SecretKeySpec(octets, ALGORITHME);
+        this.dureeMs = dureeSecondes * 1000;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHME);
+                mac.init(cle);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 indisponible", e);
+            }
+        });
+    }
+
+    public Ticket emettre(String email) {
+        long expiration = System.currentTimeMillis() + dureeMs;
+        String contenu = UUID.randomUUID() + "|" + email + "|" + expiration;
+        String encode = ENCODER.encodeToString(contenu.getBytes(StandardCharsets.UTF_8));
+        return new Ticket(encode + "." + ENCODER.encodeToString(signer(encode)), expiration);
+    }
+
+    /**
+     * Vrai si le ticket est authentique, non expiré, non révoqué et émis pour cet email.
+     */
+    public boolean verifier(String ticket, String email) {
+        String[] contenu = lire(ticket);
+        if (contenu == null || email == null || !contenu[1].equalsIgnoreCase(email)) {
+            return false;
+        }
+        return Long.parseLong(contenu[2]) > System.currentTimeMillis() && !revoques.containsKey(contenu[0]);
+    }
+
+    /**
+     * Exige un ticket émis par verify-admin pour l'utilisateur connecté (email du JWT).
+     *
+     * @throws AdminTicketRequiredException sinon (403)
+     */
+    public void exiger(String ticket, Authentication authentication) {
+        String email = authentication != null && authentication.getPrincipal() instanceof UtilisateurAuthentifie utilisateur
+                ? utilisateur.getEmail() : null;
+        if (!verifier(ticket, email)) {
+            throw new AdminTicketRequiredException("Vérification administrateur requise");
+        }
+    }
+
+    // Révoque un ticket authentique ; sans effet sur un ticket invalide ou déjà expiré
+    public void revoquer(String ticket) {
+        String[] contenu = lire(ticket);
+        if (contenu != null) {
+            long expiration = Long.parseLong(contenu[2]);
+            if (expiration > System.currentTimeMillis()) {
+                revoques.put(contenu[0], expiration);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgerRevoques() {
+        long maintenant = System.currentTimeMillis();
+        revoques.values().removeIf(expiration -> expiration <= maintenant);
+    }
+
+    // {id, email, expiration} si la signature est bonne, null sinon
+    private String[] lire(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        int point = ticket.indexOf('.');
+        if (point <= 0) {
+            return null;
+        }
+        String encode = ticket.substring(0, point);
+        try {
+            byte[] signature = DECODER.decode(ticket.substring(point + 1));
+            if (!MessageDigest.isEqual(signature, signer(encode))) {
+                return null;
+            }
+            String[] contenu = new String(DECODER.decode(encode), StandardCharsets.UTF_8).split("\\|");
+            return contenu.length == 3 ? contenu : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] signer(String contenu) {
+        return macs.get().doFinal(contenu.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static class Ticket {
+
+        private final String valeur;
+        private final long expiration;
+
+        public Ticket(String valeur, long expiration) {
+            this.valeur = valeur;
+            this.expiration = expiration;
+        }
+
+        public String getValeur() {
+            return valeur;
+        }
+
+        // Millisecondes depuis l'epoch
+        public long getExpiration() {
+            return expiration;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.patisserie.security;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Choisit le coût BCrypt d'après la machine : un hachage est chronométré au coût
+ * de référence, puis chaque point de coût en plus double la durée. Le coût retenu
+ * est le plus élevé qui tient dans le budget, borné par [min, max].
+ */
+public final class BCryptCalibration {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCalibration.class);
+
+    private static final int COUT_REFERENCE = 10;
+    private static final int MESURES = 5;
+
+    private BCryptCalibration() {
+    }
+
+    public static int calibrer(long budgetMs, int min, int max) {
+        BCryptPasswordEncoder reference = new BCryptPasswordEncoder(COUT_REFERENCE);
+        // Premier passage pour le JIT, non mesuré
+        reference.encode("calibration");
+        long[] durees = new long[MESURES];
+        for (int i = 0; i < MESURES; i++) {
+            long debut = System.nanoTime();
+            reference.encode("calibration");
+            durees[i] = System.nanoTime() - debut;
+        }
+        Arrays.sort(durees);
+        double referenceMs = durees[MESURES / 2] / 1_000_000.0;
+
+        int cout = min;
+        while (cout < max && referenceMs * Math.pow(2, cout + 1 - COUT_REFERENCE) <= budgetMs) {
+            cout++;
+        }
+        logger.info("Coût BCrypt calibré : {} (coût {} mesuré à {} ms, budget {} ms, estimation {} ms)",
+                cout, COUT_REFERENCE, String.format("%.1f", referenceMs), budgetMs,
+                String.format("%.0f", referenceMs * Math.pow(2, cout - COUT_REFERENCE)));
+        return cout;
+    }
+}
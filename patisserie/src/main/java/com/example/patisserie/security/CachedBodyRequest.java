@@ -0,0 +1,140 @@
+package com.example.patisserie.security;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Lit d'avance le début du corps (au plus "max" + 1 octets) pour qu'un filtre puisse
+ * l'examiner ; le contrôleur relit ensuite le corps complet, début compris.
+ * La lecture asynchrone (setReadListener) passe par le flux d'origine : le début
+ * déjà lu est servi en premier, y compris si le conteneur annonce directement la
+ * fin du corps.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] debut;
+    private final boolean complet;
+    private ServletInputStream flux;
+
+    CachedBodyRequest(HttpServletRequest request, int max) throws IOException {
+        super(request);
+        // Un octet de plus que la limite : permet de savoir si le corps a été lu en entier
+        this.debut = request.getInputStream().readNBytes(max + 1);
+        this.complet = debut.length <= max;
+    }
+
+    // Le corps entier tient dans getDebut()
+    boolean isComplet() {
+        return complet;
+    }
+
+    byte[] getDebut() {
+        return debut;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (flux == null) {
+            flux = new FluxRejoue(super.getInputStream());
+        }
+        return flux;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encodage = getCharacterEncoding();
+        Charset charset = encodage == null ? StandardCharsets.UTF_8 : Charset.forName(encodage);
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    // Le début mis en cache, puis la suite du flux d'origine
+    private final class FluxRejoue extends ServletInputStream {
+
+        private final ServletInputStream origine;
+        private int position;
+        private boolean fini;
+
+        private FluxRejoue(ServletInputStream origine) {
+            this.origine = origine;
+        }
+
+        private boolean resteDebut() {
+            return position < debut.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (resteDebut()) {
+                return debut[position++] & 0xff;
+            }
+            if (fini) {
+                return -1;
+            }
+            int octet = origine.read();
+            fini = octet == -1;
+            return octet;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (resteDebut()) {
+                int n = Math.min(len, debut.length - position);
+                System.arraycopy(debut, position, b, off, n);
+                position += n;
+                return n;
+            }
+            if (fini) {
+                return -1;
+            }
+            int n = origine.read(b, off, len);
+            fini = n == -1;
+            return n;
+        }
+
+        // Fin réelle : début rendu et flux d'origine épuisé (déjà le cas si le corps tenait dans le début)
+        @Override
+        public boolean isFinished() {
+            return !resteDebut() && (fini || complet || origine.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return resteDebut() || isFinished() || origine.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            origine.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    listener.onDataAvailable();
+                }
+
+                // Le conteneur peut annoncer la fin avant que le début mis en cache ait été lu
+                @Override
+                public void onAllDataRead() throws IOException {
+                    if (resteDebut()) {
+                        listener.onDataAvailable();
+                    }
+                    listener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    listener.onError(t);
+                }
+            });
+        }
+    }
+}
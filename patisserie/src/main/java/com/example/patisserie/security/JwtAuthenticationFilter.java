@@ -0,0 +1,81 @@
+package com.example.patisserie.security;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.patisserie.models.RoleName;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authentifie les requêtes portant "Authorization: Bearer <jwt>" à partir des seules
+ * claims du token (email, id, rôles) : pas de requête en base par appel.
+ * Un token absent ou invalide laisse la requête anonyme ; c'est la configuration
+ * d'accès de SecurityConfig qui décide ensuite.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUtils jwtUtils;
+
+    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
+        this.jwtUtils = jwtUtils;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                Claims claims = jwtUtils.getClaims(header.substring(BEARER.length()).trim());
+                authentifier(request, claims);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Requête traitée comme anonyme
+                SecurityContextHolder.clearContext();
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authentifier(HttpServletRequest request, Claims claims) {
+        Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        for (String nom : jwtUtils.getRoles(claims)) {
+            try {
+                RoleName role = RoleName.valueOf(nom);
+                roles.add(role);
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.name()));
+            } catch (IllegalArgumentException e) {
+                // Rôle supprimé depuis l'émission du token
+            }
+        }
+        UtilisateurAuthentifie principal =
+                new UtilisateurAuthentifie(jwtUtils.getUserId(claims), claims.getSubject(), roles);
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+    }
+}
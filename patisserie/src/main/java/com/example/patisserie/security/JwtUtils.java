@@ -2,10 +2,27 @@ package com.example.patisserie.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.example.patisserie.models.Role;
+import com.example.patisserie.models.Utilisateur;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class JwtUtils {
@@ -13,12 +30,51 @@ public class JwtUtils {
     private static final String SECRET_KEY = "mysecretkeyisatleast32characters";
     private static final long EXPIRATION_TIME = 86400000; // 24 heures en millisecondes
 
+    // Claims ajoutées au sujet (email) : de quoi authentifier une requête sans lire la base
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+
     private final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
-    // Générer un token JWT
-    public String generateToken(String email) {
+    // Immuable et thread-safe : construit une seule fois
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // Tokens déjà vérifiés (clé : SHA-256 du token), jusqu'à leur expiration. Lus sans verrou :
+    // les expirés sont retirés au nettoyage périodique, et les plus proches de l'expiration
+    // aussi au-delà de claims-cache-size
+    private final Map<String, ClaimsVerifiees> claimsVerifiees = new ConcurrentHashMap<>();
+    private final AtomicBoolean nettoyageEnCours = new AtomicBoolean();
+    private final int tailleCache;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public JwtUtils(MeterRegistry meterRegistry, @Value("${patisserie.jwt.claims-cache-size:10000}") int tailleCache) {
+        this.tailleCache = tailleCache;
+        Gauge.builder("patisserie.jwt.claims_cache.size", claimsVerifiees, Map::size)
+                .description("Tokens JWT vérifiés gardés en cache")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("patisserie.jwt.claims_cache")
+                .description("Validations de token servies par le cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("patisserie.jwt.claims_cache")
+                .description("Validations de token ayant demandé une vérification de signature")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    // Générer un token JWT portant l'id et les rôles de l'utilisateur
+    public String generateToken(Utilisateur utilisateur) {
+        List<String> roles = utilisateur.getRoles().stream()
+                .map(Role::getName)
+                .map(Enum::name)
+                .sorted()
+                .toList();
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(utilisateur.getEmail())
+                .claim(CLAIM_USER_ID, utilisateur.getId())
+                .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -28,7 +84,7 @@ public class JwtUtils {
     // Valider un token JWT
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            getClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             System.err.println("Token invalide : " + e.getMessage());
@@ -38,7 +94,97 @@ public class JwtUtils {
 
     // Extraire l'email à partir du token JWT
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
-        return claims.getSubject();
+        return getClaims(token).getSubject();
+    }
+
+    // Id de l'utilisateur, null pour un token émis avant l'ajout de la claim
+    public Long getUserId(Claims claims) {
+        Number id = claims.get(CLAIM_USER_ID, Number.class);
+        return id == null ? null : id.longValue();
+    }
+
+    // Noms des rôles, vide pour un token émis avant l'ajout de la claim
+    public List<String> getRoles(Claims claims) {
+        Object roles = claims.get(CLAIM_ROLES);
+        if (!(roles instanceof List<?> liste)) {
+            return List.of();
+        }
+        return liste.stream().map(String::valueOf).toList();
+    }
+
+    /**
+     * Claims d'un token valide (signature vérifiée, non expiré). La signature n'est
+     * vérifiée qu'au premier passage ; ensuite le token est retrouvé par son empreinte
+     * tant qu'il n'a pas expiré. Les claims renvoyées sont partagées : ne pas les modifier.
+     *
+     * @throws JwtException si le token est invalide ou expiré
+     */
+    public Claims getClaims(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token absent");
+        }
+        String empreinte = empreinte(token);
+        ClaimsVerifiees enCache = claimsVerifiees.get(empreinte);
+        if (enCache != null) {
+            if (System.currentTimeMillis() < enCache.expiration) {
+                cacheHits.increment();
+                return enCache.claims;
+            }
+            claimsVerifiees.remove(empreinte);
+        }
+        cacheMisses.increment();
+        // Lève une exception si la signature est fausse ou le token expiré
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            if (claimsVerifiees.size() >= tailleCache) {
+                nettoyer(true);
+            }
+            claimsVerifiees.put(empreinte, new ClaimsVerifiees(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    @Scheduled(fixedDelayString = "${patisserie.jwt.claims-cache-sweep-interval-ms:60000}")
+    public void nettoyer() {
+        nettoyer(false);
+    }
+
+    private void nettoyer(boolean depassement) {
+        if (!nettoyageEnCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long maintenant = System.currentTimeMillis();
+            claimsVerifiees.values().removeIf(c -> c.expiration <= maintenant);
+            if (depassement && claimsVerifiees.size() >= tailleCache) {
+                // Toujours plein : on oublie le dixième le plus proche de l'expiration
+                List<Map.Entry<String, ClaimsVerifiees>> entrees = new ArrayList<>(claimsVerifiees.entrySet());
+                entrees.sort(Comparator.comparingLong(e -> e.getValue().expiration));
+                entrees.subList(0, Math.max(1, entrees.size() / 10))
+                        .forEach(e -> claimsVerifiees.remove(e.getKey(), e.getValue()));
+            }
+        } finally {
+            nettoyageEnCours.set(false);
+        }
+    }
+
+    private static String empreinte(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static final class ClaimsVerifiees {
+        private final Claims claims;
+        // Date d'expiration du token, en millisecondes
+        private final long expiration;
+
+        private ClaimsVerifiees(Claims claims, long expiration) {
+            this.claims = claims;
+            this.expiration = expiration;
+        }
     }
 }
@@ -0,0 +1,110 @@
+package com.example.patisserie.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.patisserie.config.RateLimitProperties;
+import com.example.patisserie.config.RateLimitProperties.Route;
+import com.example.patisserie.services.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Limite le débit des routes sensibles (connexion, inscription, réinitialisation
+ * du mot de passe, vérification admin) par adresse IP et par email, avant tout
+ * calcul BCrypt ou envoi de mail. Au-delà : 429 avec Retry-After.
+ * L'adresse IP est getRemoteAddr() : derrière un proxy, activer
+ * server.forward-headers-strategy pour qu'elle soit celle du client.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Les corps des routes limitées sont de petits JSON ; au-delà, pas de limite par email
+    private static final int TAILLE_MAX_CORPS = 16 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String chemin = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, Route> entry : properties.getRoutes().entrySet()) {
+            Route route = entry.getValue();
+            if (!chemin.equals(route.getPath()) || !request.getMethod().equalsIgnoreCase(route.getMethod())) {
+                continue;
+            }
+            if (route.getIp() != null) {
+                long attente = rateLimiter.consommer(entry.getKey(), "ip", request.getRemoteAddr(), route.getIp());
+                if (attente > 0) {
+                    refuser(response, attente);
+                    return;
+                }
+            }
+            if (route.getEmail() != null) {
+                CachedBodyRequest lecture = new CachedBodyRequest(request, TAILLE_MAX_CORPS);
+                request = lecture;
+                String email = email(lecture);
+                if (email != null) {
+                    long attente = rateLimiter.consommer(entry.getKey(), "email", email, route.getEmail());
+                    if (attente > 0) {
+                        refuser(response, attente);
+                        return;
+                    }
+                }
+            }
+            break;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // Champ "email" du corps JSON, normalisé ; null si absent ou illisible
+    private String email(CachedBodyRequest request) {
+        if (!request.isComplet() || request.getDebut().length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(request.getDebut()).get("email");
+            if (email == null || !email.isTextual() || email.asText().isBlank()) {
+                return null;
+            }
+            return email.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Corps invalide : le contrôleur répondra 400
+            return null;
+        }
+    }
+
+    private static void refuser(HttpServletResponse response, long attenteNanos) throws IOException {
+        long secondes = Math.max(1, (attenteNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(secondes));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Trop de tentatives, réessayez dans " + secondes + " s.");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.patisserie.security;
+
+import java.util.Set;
+
+import com.example.patisserie.models.RoleName;
+
+/**
+ * Principal des requêtes authentifiées par JWT, reconstruit à partir des claims
+ * du token (aucune lecture en base).
+ */
+public class UtilisateurAuthentifie {
+
+    private final Long id;
+    private final String email;
+    private final Set<RoleName> roles;
+
+    public UtilisateurAuthentifie(Long id, String email, Set<RoleName> roles) {
+        this.id = id;
+        this.email = email;
+        this.roles = Set.copyOf(roles);
+    }
+
+    // Null pour un token émis avant l'ajout de la claim uid
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Set<RoleName> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(RoleName role) {
+        return roles.contains(role);
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
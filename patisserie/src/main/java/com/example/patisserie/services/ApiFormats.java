@@ -0,0 +1,96 @@
+package com.example.patisserie.services;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Formats de sérialisation proposés par l'API : JSON par défaut, CBOR et Smile
+ * (binaires, plus compacts et moins coûteux à encoder) pour les clients qui les
+ * demandent dans Accept. Les trois ObjectMapper partagent la configuration
+ * Jackson de l'application.
+ */
+@Service
+public class ApiFormats {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public enum Format {
+        // JSON en premier : c'est lui qui répond à */*
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(MediaType.APPLICATION_CBOR),
+        SMILE(APPLICATION_SMILE);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Prototype fourni par Spring Boot, déjà configuré avec les propriétés spring.jackson.*
+    @Autowired
+    private ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+
+    @PostConstruct
+    void init() {
+        mappers.put(Format.JSON, objectMapper);
+        mappers.put(Format.CBOR, builders.getObject().factory(new CBORFactory()).build());
+        mappers.put(Format.SMILE, builders.getObject().factory(new SmileFactory()).build());
+    }
+
+    public ObjectMapper mapper(Format format) {
+        return mappers.get(format);
+    }
+
+    /**
+     * Format à utiliser pour cet en-tête Accept : le premier accepté par ordre de
+     * qualité décroissante, JSON si l'en-tête est absent, invalide ou sans format connu.
+     */
+    public Format negocier(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return Format.JSON;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return Format.JSON;
+        }
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Format format : Format.values()) {
+                if (type.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return Format.JSON;
+    }
+}
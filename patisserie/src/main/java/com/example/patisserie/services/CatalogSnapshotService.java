@@ -0,0 +1,108 @@
+package com.example.patisserie.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+/**
+ * Garde en mémoire le catalogue déjà sérialisé en JSON, CBOR et Smile.
+ * GET /api/produits sert ces octets tels quels :
+ * pas de requête SQL ni de travail Jackson par requête. Le snapshot est
+ * reconstruit après chaque écriture validée sur un produit ; les compteurs de
+ * commandes ne le reconstruisent pas, compteurCommandes y est donc celui de la
+ * dernière écriture.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private ApiFormats apiFormats;
+
+    // Distingue les ETag d'un redémarrage à l'autre, les versions repartant de 1
+    private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener
+    public void onProduitChanged(ProduitChangedEvent event) {
+        rebuild();
+    }
+
+    // Les reconstructions sont sérialisées pour qu'un snapshot ancien n'écrase jamais un plus récent
+    // Tous les formats sont encodés ici : le snapshot ne garde que des octets, pas les entités
+    public synchronized Snapshot rebuild() {
+        List<Produit> produits = produitRepository.findAll();
+        Map<ApiFormats.Format, byte[]> encodages = new EnumMap<>(ApiFormats.Format.class);
+        for (ApiFormats.Format format : ApiFormats.Format.values()) {
+            try {
+                encodages.put(format, apiFormats.mapper(format).writeValueAsBytes(produits));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de sérialiser le catalogue : " + e.getMessage(), e);
+            }
+        }
+        Snapshot nouveau = new Snapshot(versions.incrementAndGet(), encodages);
+        snapshot = nouveau;
+        return nouveau;
+    }
+
+    // Octets du catalogue dans ce format, encodés à la reconstruction du snapshot
+    public byte[] getBytes(Snapshot snapshot, ApiFormats.Format format) {
+        return snapshot.encodages.get(format);
+    }
+
+    /**
+     * Catalogue figé, déjà encodé dans chaque format : les octets ne doivent
+     * jamais être modifiés.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Map<ApiFormats.Format, byte[]> encodages;
+
+        Snapshot(long version, Map<ApiFormats.Format, byte[]> encodages) {
+            this.version = version;
+            this.encodages = Map.copyOf(encodages);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // Un ETag par représentation : un cache ne doit pas confondre le JSON et le CBOR
+        public String getEtag(ApiFormats.Format format) {
+            String suffixe = format == ApiFormats.Format.JSON ? "" : "-" + format.name().toLowerCase(Locale.ROOT);
+            return "\"catalog-" + EPOCH + "-" + version + suffixe + "\"";
+        }
+    }
+}
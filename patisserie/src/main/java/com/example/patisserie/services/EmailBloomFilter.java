@@ -0,0 +1,180 @@
+package com.example.patisserie.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.patisserie.repositories.UtilisateurRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Filtre de Bloom sur les emails des comptes, chargé depuis la table au démarrage
+ * puis complété à chaque inscription. "Absent" est certain : l'email n'a jamais
+ * été enregistré et la base n'a pas à être interrogée. "Peut-être présent" (compte
+ * existant, faux positif ou compte supprimé depuis) renvoie vers la base.
+ * Tant que le chargement n'est pas terminé, tout email est "peut-être présent".
+ */
+@Service
+public class EmailBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${patisserie.email-bloom.expected-insertions:100000}")
+    private long insertionsPrevues;
+
+    @Value("${patisserie.email-bloom.fpp:0.01}")
+    private double tauxFauxPositifs;
+
+    private AtomicLongArray bits;
+    private long nbBits;
+    private int nbHachages;
+
+    private final LongAdder insertions = new LongAdder();
+    private volatile boolean pret;
+    private volatile boolean saturationSignalee;
+
+    private Counter absents;
+    private Counter peutEtrePresents;
+
+    @PostConstruct
+    void init() {
+        if (insertionsPrevues < 1 || tauxFauxPositifs <= 0 || tauxFauxPositifs >= 1) {
+            throw new IllegalStateException("patisserie.email-bloom : expected-insertions >= 1 et 0 < fpp < 1");
+        }
+        // m = -n ln p / (ln 2)², arrondi au mot de 64 bits ; k = m/n ln 2
+        double m = -insertionsPrevues * Math.log(tauxFauxPositifs) / (Math.log(2) * Math.log(2));
+        int mots = (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(m / Long.SIZE));
+        nbBits = (long) mots * Long.SIZE;
+        nbHachages = Math.max(1, (int) Math.round((double) nbBits / insertionsPrevues * Math.log(2)));
+        bits = new AtomicLongArray(mots);
+
+        Gauge.builder("patisserie.email_bloom.insertions", insertions, LongAdder::sum)
+                .description("Emails ajoutés au filtre depuis le démarrage")
+                .register(meterRegistry);
+        absents = Counter.builder("patisserie.email_bloom.lookups")
+                .description("Emails certainement absents, sans requête en base")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        peutEtrePresents = Counter.builder("patisserie.email_bloom.lookups")
+                .description("Emails peut-être présents, vérifiés en base")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lit les emails en flux : la mémoire ne dépend pas du nombre de comptes.
+     * Une inscription validée pendant la lecture est ajoutée par son propre appel
+     * à ajouter(), qu'elle soit lue ici ou non.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        long debut = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> emails = utilisateurRepository.streamEmails()) {
+                emails.forEach(this::ajouter);
+            }
+        });
+        pret = true;
+        log.info("Filtre des emails chargé : {} emails, {} Kio, {} hachages, en {} ms",
+                insertions.sum(), nbBits / 8 / 1024, nbHachages, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    public void ajouter(String email) {
+        String cle = normaliser(email);
+        if (cle == null) {
+            return;
+        }
+        long h1 = hacher(cle);
+        long h2 = melanger(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < nbHachages; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, nbBits);
+            int mot = (int) (bit >>> 6);
+            long masque = 1L << bit;
+            long ancien = bits.get(mot);
+            while ((ancien & masque) == 0 && !bits.compareAndSet(mot, ancien, ancien | masque)) {
+                ancien = bits.get(mot);
+            }
+        }
+        insertions.increment();
+        if (insertions.sum() > insertionsPrevues && !saturationSignalee) {
+            saturationSignalee = true;
+            log.warn("Plus de {} emails dans le filtre : le taux de faux positifs dépasse {}, " +
+                     "augmenter patisserie.email-bloom.expected-insertions", insertionsPrevues, tauxFauxPositifs);
+        }
+    }
+
+    /**
+     * false si l'email n'a certainement jamais été enregistré ; true sinon
+     * (à vérifier en base).
+     */
+    public boolean peutContenir(String email) {
+        String cle = normaliser(email);
+        if (!pret || cle == null) {
+            peutEtrePresents.increment();
+            return true;
+        }
+        long h1 = hacher(cle);
+        long h2 = melanger(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < nbHachages; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, nbBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                absents.increment();
+                return false;
+            }
+        }
+        peutEtrePresents.increment();
+        return true;
+    }
+
+    // Sans distinction de casse : un faux "peut-être" de plus, jamais un faux "absent"
+    private static String normaliser(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // FNV-1a 64 bits sur l'UTF-8, puis mélange final de MurmurHash3
+    private static long hacher(String cle) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : cle.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return melanger(h);
+    }
+
+    private static long melanger(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
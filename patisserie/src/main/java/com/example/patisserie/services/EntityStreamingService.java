@@ -0,0 +1,65 @@
+package com.example.patisserie.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Écrit un tableau (JSON, CBOR ou Smile) ligne par ligne à partir d'un Stream JPA (curseur côté
+ * base, lecture vers l'avant uniquement). Le contexte de persistance est vidé
+ * tous les taillePaquet éléments : la mémoire reste stable quel que soit le
+ * nombre de lignes. Appelé depuis un StreamingResponseBody, donc hors du
+ * thread de la requête : la transaction est ouverte ici.
+ */
+@Service
+public class EntityStreamingService {
+
+    @Autowired
+    private ApiFormats apiFormats;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${patisserie.streaming.chunk-size:500}")
+    private int taillePaquet;
+
+    /**
+     * @param source requête renvoyant un Stream, exécutée dans la transaction de lecture
+     * @return le nombre d'éléments écrits
+     */
+    @Transactional(readOnly = true)
+    public <T> long ecrire(Supplier<Stream<T>> source, OutputStream out, ApiFormats.Format format)
+            throws IOException {
+        ObjectMapper objectMapper = apiFormats.mapper(format);
+        // Pas de flush à chaque élément : le tampon du générateur et celui de Tomcat suffisent
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long ecrits = 0;
+        try (Stream<T> lignes = source.get();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (Iterator<T> it = lignes.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                if (++ecrits % taillePaquet == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.writeEndArray();
+        }
+        return ecrits;
+    }
+}
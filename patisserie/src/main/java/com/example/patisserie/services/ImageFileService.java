@@ -0,0 +1,225 @@
+package com.example.patisserie.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Résolution des fichiers image sous public/images et cache de leurs métadonnées
+ * (taille, date, type, ETag fort calculé sur le contenu, présence de versions
+ * .br / .gz précompressées). Un fichier n'est relu sur disque que si sa taille
+ * ou sa date ont changé ; l'état est revérifié au plus une fois par TTL.
+ */
+@Service
+public class ImageFileService {
+
+    private static final int TAILLE_BLOC = 64 * 1024;
+
+    @Value("${patisserie.images.root:public/images}")
+    private String racineImages;
+
+    @Value("${patisserie.images.metadata-ttl-ms:2000}")
+    private long ttlMillis;
+
+    @Value("${patisserie.images.metadata-max-entries:10000}")
+    private int maxEntrees;
+
+    private final Map<Path, Metadonnees> cache = new ConcurrentHashMap<>();
+
+    private volatile Path racine;
+
+    /**
+     * Fichier à servir pour ce chemin relatif, en préférant une version
+     * précompressée acceptée par le client. null si l'image n'existe pas.
+     */
+    public ImageFile resolve(String relatif, boolean accepteBrotli, boolean accepteGzip) throws IOException {
+        Path original = chemin(relatif);
+        if (original == null) {
+            return null;
+        }
+        Metadonnees meta = metadonnees(original);
+        if (meta == null) {
+            return null;
+        }
+        MediaType type = MediaTypeFactory.getMediaType(original.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        if (accepteBrotli) {
+            ImageFile br = precompresse(original, meta, type, "br");
+            if (br != null) {
+                return br;
+            }
+        }
+        if (accepteGzip) {
+            ImageFile gz = precompresse(original, meta, type, "gz");
+            if (gz != null) {
+                return gz;
+            }
+        }
+        return new ImageFile(original, meta, type, null);
+    }
+
+    // Une version précompressée plus ancienne que l'original est ignorée
+    private ImageFile precompresse(Path original, Metadonnees metaOriginal, MediaType type, String extension)
+            throws IOException {
+        Path chemin = original.resolveSibling(original.getFileName() + "." + extension);
+        Metadonnees meta = metadonnees(chemin);
+        if (meta == null || meta.dateModification < metaOriginal.dateModification) {
+            return null;
+        }
+        return new ImageFile(chemin, meta, type, extension.equals("br") ? "br" : "gzip");
+    }
+
+    private Path chemin(String relatif) {
+        Path base = racine;
+        if (base == null) {
+            base = Paths.get(racineImages).toAbsolutePath().normalize();
+            racine = base;
+        }
+        Path chemin = base.resolve(relatif).normalize();
+        // Refuse ../ et les chemins absolus qui sortiraient de public/images
+        if (!chemin.startsWith(base) || chemin.equals(base)) {
+            return null;
+        }
+        // Uploads en cours (store/tmp) et fichiers temporaires des variantes : jamais servis
+        if (chemin.startsWith(base.resolve("store").resolve("tmp"))) {
+            return null;
+        }
+        String nom = chemin.getFileName().toString();
+        return nom.startsWith(".") || nom.endsWith(".tmp") ? null : chemin;
+    }
+
+    private Metadonnees metadonnees(Path chemin) throws IOException {
+        long maintenant = System.nanoTime();
+        Metadonnees enCache = cache.get(chemin);
+        if (enCache != null && maintenant - enCache.verifieA < TimeUnit.MILLISECONDS.toNanos(ttlMillis)) {
+            return enCache.absent() ? null : enCache;
+        }
+
+        Metadonnees meta;
+        try {
+            BasicFileAttributes attributs = Files.readAttributes(chemin, BasicFileAttributes.class);
+            long taille = attributs.size();
+            long date = attributs.lastModifiedTime().toMillis();
+            if (!attributs.isRegularFile()) {
+                meta = Metadonnees.absent(maintenant);
+            } else if (enCache != null && !enCache.absent()
+                    && enCache.taille == taille && enCache.dateModification == date) {
+                meta = new Metadonnees(taille, date, enCache.etag, maintenant);
+            } else {
+                meta = new Metadonnees(taille, date, empreinte(chemin), maintenant);
+            }
+        } catch (NoSuchFileException e) {
+            meta = Metadonnees.absent(maintenant);
+        }
+        if (cache.size() >= maxEntrees) {
+            cache.clear();
+        }
+        cache.put(chemin, meta);
+        return meta.absent() ? null : meta;
+    }
+
+    // ETag fort : SHA-256 du contenu, calculé une seule fois par version du fichier
+    private static String empreinte(Path chemin) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_BLOC);
+        try (FileChannel canal = FileChannel.open(chemin, StandardOpenOption.READ)) {
+            while (canal.read(tampon) != -1) {
+                tampon.flip();
+                sha256.update(tampon);
+                tampon.clear();
+            }
+        }
+        return "\"" + HexFormat.of().formatHex(sha256.digest(), 0, 16) + "\"";
+    }
+
+    private static final class Metadonnees {
+        private final long taille;
+        private final long dateModification;
+        private final String etag;
+        private final long verifieA;
+
+        private Metadonnees(long taille, long dateModification, String etag, long verifieA) {
+            this.taille = taille;
+            this.dateModification = dateModification;
+            this.etag = etag;
+            this.verifieA = verifieA;
+        }
+
+        // Fichier inexistant, mis en cache lui aussi pour ne pas refaire un stat à chaque requête
+        private static Metadonnees absent(long verifieA) {
+            return new Metadonnees(-1, -1, null, verifieA);
+        }
+
+        private boolean absent() {
+            return etag == null;
+        }
+    }
+
+    /**
+     * Fichier prêt à servir. encodage vaut "br" ou "gzip" pour une version précompressée.
+     */
+    public static final class ImageFile {
+        private final Path chemin;
+        private final long taille;
+        private final long dateModification;
+        private final String etag;
+        private final MediaType contentType;
+        private final String encodage;
+
+        private ImageFile(Path chemin, Metadonnees meta, MediaType contentType, String encodage) {
+            this.chemin = chemin;
+            this.taille = meta.taille;
+            this.dateModification = meta.dateModification;
+            // Chaque représentation a son propre ETag
+            this.etag = encodage == null ? meta.etag : meta.etag.replaceFirst("\"$", "-" + encodage + "\"");
+            this.contentType = contentType;
+            this.encodage = encodage;
+        }
+
+        public Path getChemin() {
+            return chemin;
+        }
+
+        public long getTaille() {
+            return taille;
+        }
+
+        public long getDateModification() {
+            return dateModification;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        public String getEncodage() {
+            return encodage;
+        }
+    }
+}
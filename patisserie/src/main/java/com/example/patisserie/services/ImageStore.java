@@ -0,0 +1,95 @@
+package com.example.patisserie.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.patisserie.exceptions.BadRequestException;
+
+/**
+ * Stockage des images par contenu : chaque fichier est rangé sous le SHA-256
+ * de ses octets (public/images/store/ab/abcdef....png). Le corps de l'upload est
+ * copié sur disque par blocs en calculant l'empreinte au passage, sans jamais
+ * être chargé en mémoire. Deux uploads identiques donnent le même fichier, et
+ * une URL ne change jamais de contenu : elle peut être mise en cache un an.
+ */
+@Service
+public class ImageStore {
+
+    public static final String URL_PREFIX = "/images/store/";
+
+    private static final Set<String> EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp");
+    private static final int TAILLE_BLOC = 64 * 1024;
+
+    @Value("${patisserie.images.root:public/images}")
+    private String racineImages;
+
+    /**
+     * Enregistre l'image et renvoie son URL publique (/images/store/...).
+     */
+    public String store(MultipartFile file) throws IOException {
+        String extension = extension(file.getOriginalFilename());
+        Path store = Paths.get(racineImages, "store").toAbsolutePath();
+        Path temporaires = store.resolve("tmp");
+        Files.createDirectories(temporaires);
+
+        Path temporaire = Files.createTempFile(temporaires, "upload", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256);
+                 OutputStream out = Files.newOutputStream(temporaire)) {
+                byte[] bloc = new byte[TAILLE_BLOC];
+                int lus;
+                while ((lus = in.read(bloc)) != -1) {
+                    out.write(bloc, 0, lus);
+                }
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String relatif = hash.substring(0, 2) + "/" + hash + "." + extension;
+            Path cible = store.resolve(relatif);
+            if (!Files.exists(cible)) {
+                Files.createDirectories(cible.getParent());
+                try {
+                    Files.move(temporaire, cible, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Même image envoyée au même moment par un autre upload : le fichier est déjà là
+                }
+            }
+            return URL_PREFIX + relatif;
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    private static String extension(String nomFichier) {
+        int point = nomFichier == null ? -1 : nomFichier.lastIndexOf('.');
+        String extension = point < 0 ? "" : nomFichier.substring(point + 1).toLowerCase(Locale.ROOT);
+        if (!EXTENSIONS.contains(extension)) {
+            throw new BadRequestException("Format d'image non supporté : " + nomFichier);
+        }
+        return extension.equals("jpeg") ? "jpg" : extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.patisserie.services;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Génère les déclinaisons d'une image produit (miniature, moyenne, pleine taille)
+ * en JPEG compressé, hors du thread de la requête d'upload.
+ * Les travaux passent par un pool borné : si la file est pleine, la demande est
+ * abandonnée et le produit garde son image d'origine jusqu'au prochain upload.
+ * Les dimensions sont lues dans l'en-tête avant tout décodage : une image de plus
+ * de max-pixels pixels est refusée, une grande image est décodée sous-échantillonnée.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final float QUALITE_JPEG = 0.8f;
+
+    public enum Variante {
+        THUMBNAIL("thumb", 240),
+        MEDIUM("medium", 640),
+        FULL("full", 1600);
+
+        private final String suffixe;
+        private final int largeurMax;
+
+        Variante(String suffixe, int largeurMax) {
+            this.suffixe = suffixe;
+            this.largeurMax = largeurMax;
+        }
+    }
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${patisserie.images.root:public/images}")
+    private String racineImages;
+
+    @Value("${patisserie.images.workers:2}")
+    private int workers;
+
+    @Value("${patisserie.images.queue-capacity:100}")
+    private int capaciteFile;
+
+    @Value("${patisserie.images.max-pixels:40000000}")
+    private long maxPixels;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void demarrer() {
+        AtomicInteger numero = new AtomicInteger();
+        ThreadFactory threads = r -> {
+            Thread thread = new Thread(r, "image-variants-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), threads,
+                (r, e) -> logger.warn("File de génération des images pleine, demande abandonnée"));
+    }
+
+    @PreDestroy
+    void arreter() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Demande la génération des variantes de l'image du produit. Dans une
+     * transaction, la demande n'est soumise qu'après le commit.
+     */
+    public void planifier(Produit produit) {
+        if (produit.getId() == null || produit.getImage() == null) {
+            return;
+        }
+        Long id = produit.getId();
+        String image = produit.getImage();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> generer(id, image));
+                }
+            });
+        } else {
+            executor.execute(() -> generer(id, image));
+        }
+    }
+
+    // URL publique d'une variante : /images/cake/flyer.png -> /images/cake/variants/flyer-thumb.jpg
+    public static String urlVariante(String image, Variante variante) {
+        int slash = image.lastIndexOf('/');
+        String dossier = image.substring(0, slash + 1);
+        String nom = image.substring(slash + 1);
+        int point = nom.lastIndexOf('.');
+        String base = point > 0 ? nom.substring(0, point) : nom;
+        return dossier + "variants/" + base + "-" + variante.suffixe + ".jpg";
+    }
+
+    private void generer(Long id, String image) {
+        try {
+            Path source = chemin(image);
+            if (!Files.isRegularFile(source)) {
+                logger.warn("Image introuvable pour le produit {} : {}", id, image);
+                return;
+            }
+            BufferedImage original = null;
+            for (Variante variante : Variante.values()) {
+                Path cible = chemin(urlVariante(image, variante));
+                // Variante déjà à jour (même upload traité deux fois)
+                if (Files.exists(cible)
+                        && Files.getLastModifiedTime(cible).compareTo(Files.getLastModifiedTime(source)) >= 0) {
+                    continue;
+                }
+                if (original == null) {
+                    original = lire(id, source);
+                    if (original == null) {
+                        return;
+                    }
+                }
+                ecrire(redimensionner(original, variante.largeurMax), cible);
+            }
+            enregistrer(id, image);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Échec de la génération des variantes pour le produit {} : {}", id, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Décode l'image après avoir vérifié ses dimensions (en-tête seul). Au-delà de
+     * deux fois la plus grande variante, seul un pixel sur n est décodé : la mémoire
+     * suit la taille utile, pas celle du fichier. null si l'image est refusée.
+     */
+    private BufferedImage lire(Long id, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                logger.warn("Format d'image non supporté pour le produit {} : {}", id, source.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int largeur = reader.getWidth(0);
+                int hauteur = reader.getHeight(0);
+                if (largeur < 1 || hauteur < 1 || (long) largeur * hauteur > maxPixels) {
+                    logger.warn("Image refusée pour le produit {} : {}x{} pixels (maximum {})",
+                            id, largeur, hauteur, maxPixels);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int pas = Math.max(1, largeur / (2 * Variante.FULL.largeurMax));
+                if (pas > 1) {
+                    param.setSourceSubsampling(pas, pas, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Enregistre les URLs des variantes, sauf si l'image a changé entre-temps
+    private void enregistrer(Long id, String image) {
+        transactionTemplate.executeWithoutResult(status -> produitRepository.findById(id).ifPresent(produit -> {
+            if (!image.equals(produit.getImage())) {
+                return;
+            }
+            String thumbnail = urlVariante(image, Variante.THUMBNAIL);
+            String medium = urlVariante(image, Variante.MEDIUM);
+            String full = urlVariante(image, Variante.FULL);
+            if (Objects.equals(thumbnail, produit.getImageThumbnail())
+                    && Objects.equals(medium, produit.getImageMedium())
+                    && Objects.equals(full, produit.getImageFull())) {
+                return;
+            }
+            produit.setImageThumbnail(thumbnail);
+            produit.setImageMedium(medium);
+            produit.setImageFull(full);
+            Produit saved = produitRepository.save(produit);
+            eventPublisher.publishEvent(ProduitChangedEvent.updated(saved));
+        }));
+    }
+
+    private Path chemin(String url) {
+        String relatif = url.startsWith("/images/") ? url.substring("/images/".length()) : url;
+        Path racine = Paths.get(racineImages).toAbsolutePath().normalize();
+        Path chemin = racine.resolve(relatif).normalize();
+        if (!chemin.startsWith(racine)) {
+            throw new IllegalArgumentException("Chemin d'image invalide : " + url);
+        }
+        return chemin;
+    }
+
+    // Réduit à largeurMax sans jamais agrandir ; fond blanc pour la transparence (JPEG)
+    private static BufferedImage redimensionner(BufferedImage source, int largeurMax) {
+        int largeur = Math.min(largeurMax, source.getWidth());
+        int hauteur = Math.max(1, Math.round((float) source.getHeight() * largeur / source.getWidth()));
+        BufferedImage cible = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = cible.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.drawImage(source, 0, 0, largeur, hauteur, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return cible;
+    }
+
+    // Écrit dans un fichier temporaire puis renomme : un client ne lit jamais une variante à moitié écrite
+    private static void ecrire(BufferedImage image, Path cible) throws IOException {
+        Files.createDirectories(cible.getParent());
+        Path temporaire = Files.createTempFile(cible.getParent(), ".variant", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (OutputStream out = Files.newOutputStream(temporaire);
+                 ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(ios);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(QUALITE_JPEG);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+}
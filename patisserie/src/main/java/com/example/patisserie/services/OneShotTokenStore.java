@@ -0,0 +1,268 @@
+package com.example.patisserie.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.OneShotToken;
+import com.example.patisserie.models.Utilisateur;
+import com.example.patisserie.repositories.OneShotTokenRepository;
+import com.example.patisserie.repositories.UtilisateurRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Tokens à usage unique : réinitialisation du mot de passe et confirmation d'email.
+ * Le token (256 bits aléatoires) n'est connu que de son destinataire ; la base ne
+ * garde que son empreinte SHA-256, indexée. La consommation supprime la ligne :
+ * deux utilisations concurrentes du même token, une seule réussit.
+ *
+ * Niveau en mémoire (facultatif, une seule instance) : les empreintes des tokens
+ * valides sont aussi gardées en mémoire, expirées par une roue temporelle. Un
+ * token inconnu ou expiré est alors refusé sans requête. Avec plusieurs instances,
+ * un token émis par une autre serait refusé : laisser ce niveau désactivé.
+ *
+ * Les lignes expirées sont purgées par lots, chaque lot dans sa propre transaction.
+ */
+@Service
+public class OneShotTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OneShotTokenStore.class);
+
+    private static final String PURGER_LOT =
+            "DELETE FROM one_shot_token WHERE id IN " +
+            "(SELECT id FROM one_shot_token WHERE expiration_date < ? ORDER BY id LIMIT ?)";
+
+    private static final String TOKEN_INVALIDE = "Token invalide ou inexistant !";
+
+    @Autowired
+    private OneShotTokenRepository tokenRepository;
+
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${patisserie.one-shot-tokens.password-reset-ttl-minutes:60}")
+    private long dureeResetMinutes;
+
+    @Value("${patisserie.one-shot-tokens.email-confirmation-ttl-hours:48}")
+    private long dureeConfirmationHeures;
+
+    @Value("${patisserie.one-shot-tokens.purge-batch-size:500}")
+    private int tailleLot;
+
+    @Value("${patisserie.one-shot-tokens.purge-max-batches:200}")
+    private int maxLots;
+
+    @Value("${patisserie.one-shot-tokens.memory-tier.enabled:false}")
+    private boolean memoireActivee;
+
+    @Value("${patisserie.one-shot-tokens.memory-tier.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${patisserie.one-shot-tokens.memory-tier.wheel-slots:3600}")
+    private int nbSlots;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Empreinte -> token valide ; complet (donc autoritaire) une fois chargé
+    private final Map<String, JetonEnMemoire> memoire = new ConcurrentHashMap<>();
+    private TimingWheel<String> roue;
+    private volatile boolean memoirePrete;
+
+    @PostConstruct
+    void init() {
+        if (memoireActivee) {
+            roue = new TimingWheel<>(nbSlots, tickMs, System.currentTimeMillis());
+            Gauge.builder("patisserie.one_shot_tokens.memory", memoire, Map::size)
+                    .description("Tokens à usage unique gardés en mémoire")
+                    .register(meterRegistry);
+        }
+    }
+
+    // Les tokens encore valides sont peu nombreux : lus en une fois
+    @EventListener(ApplicationReadyEvent.class)
+    public void chargerMemoire() {
+        if (!memoireActivee) {
+            return;
+        }
+        for (OneShotToken token : tokenRepository.findByExpirationDateAfter(LocalDateTime.now())) {
+            retenir(token);
+        }
+        memoirePrete = true;
+        log.info("{} tokens à usage unique chargés en mémoire", memoire.size());
+    }
+
+    /**
+     * Émet un token pour cet utilisateur ; les tokens précédents du même type
+     * sont révoqués. Renvoie le token en clair, à transmettre au seul destinataire.
+     */
+    public String emettre(OneShotToken.Type type, Utilisateur utilisateur) {
+        byte[] octets = new byte[32];
+        random.nextBytes(octets);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+
+        tokenRepository.supprimerPourUtilisateur(utilisateur.getId(), type);
+        OneShotToken ligne = new OneShotToken();
+        ligne.setType(type);
+        ligne.setEmpreinte(empreinte(token));
+        ligne.setUtilisateurId(utilisateur.getId());
+        ligne.setExpirationDate(LocalDateTime.now().plus(duree(type)));
+        tokenRepository.save(ligne);
+        if (memoireActivee) {
+            retenir(ligne);
+        }
+        return token;
+    }
+
+    /**
+     * Vérifie le token sans le consommer : à appeler avant un travail coûteux
+     * (hachage du nouveau mot de passe) pour qu'un token invalide ne le déclenche pas.
+     *
+     * @throws BadRequestException si le token est inconnu, d'un autre type,
+     *         déjà utilisé ou expiré
+     */
+    public void verifier(OneShotToken.Type type, String token) {
+        OneShotToken ligne = tokenRepository.findByEmpreinte(empreinteConnue(type, token))
+                .filter(t -> t.getType() == type)
+                .orElseThrow(() -> new BadRequestException(TOKEN_INVALIDE));
+        if (ligne.getExpirationDate().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Le token a expiré !");
+        }
+    }
+
+    /**
+     * Consomme le token et renvoie son utilisateur.
+     *
+     * @throws BadRequestException si le token est inconnu, d'un autre type,
+     *         déjà utilisé ou expiré
+     */
+    public Utilisateur consommer(OneShotToken.Type type, String token) {
+        String empreinte = empreinteConnue(type, token);
+        OneShotToken ligne = tokenRepository.findByEmpreinte(empreinte)
+                .filter(t -> t.getType() == type)
+                .orElseThrow(() -> new BadRequestException(TOKEN_INVALIDE));
+        if (tokenRepository.supprimer(ligne.getId()) == 0) {
+            // Consommé entre-temps par un autre appel
+            throw new BadRequestException(TOKEN_INVALIDE);
+        }
+        memoire.remove(empreinte);
+        if (ligne.getExpirationDate().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Le token a expiré !");
+        }
+        return utilisateurRepository.findById(ligne.getUtilisateurId())
+                .orElseThrow(() -> new BadRequestException(TOKEN_INVALIDE));
+    }
+
+    /**
+     * Supprime les tokens expirés par lots de purge-batch-size, chacun validé à
+     * part : aucun verrou n'est tenu au-delà d'un lot. S'arrête au premier lot
+     * incomplet, ou après purge-max-batches lots (la suite au prochain passage).
+     */
+    @Scheduled(cron = "${patisserie.one-shot-tokens.purge-cron:0 */10 * * * *}")
+    public int purgerExpires() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now());
+        int total = 0;
+        for (int lot = 0; lot < maxLots; lot++) {
+            int supprimes = jdbcTemplate.update(PURGER_LOT, limite, tailleLot);
+            total += supprimes;
+            if (supprimes < tailleLot) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("{} tokens à usage unique expirés purgés", total);
+        }
+        return total;
+    }
+
+    // Retire de la mémoire les tokens arrivés à échéance
+    @Scheduled(fixedDelayString = "${patisserie.one-shot-tokens.memory-tier.tick-ms:1000}")
+    public void avancerRoue() {
+        if (!memoireActivee) {
+            return;
+        }
+        long maintenant = System.currentTimeMillis();
+        for (String empreinte : roue.avancer(maintenant)) {
+            memoire.computeIfPresent(empreinte, (cle, jeton) -> jeton.expiration <= maintenant ? null : jeton);
+        }
+    }
+
+    // Empreinte du token ; refusé sans requête s'il est vide, ou absent du niveau en mémoire
+    private String empreinteConnue(OneShotToken.Type type, String token) {
+        if (token == null || token.isBlank()) {
+            throw new BadRequestException(TOKEN_INVALIDE);
+        }
+        String empreinte = empreinte(token);
+        if (memoirePrete) {
+            JetonEnMemoire enMemoire = memoire.get(empreinte);
+            if (enMemoire == null || enMemoire.type != type) {
+                throw new BadRequestException(TOKEN_INVALIDE);
+            }
+            if (enMemoire.expiration <= System.currentTimeMillis()) {
+                throw new BadRequestException("Le token a expiré !");
+            }
+        }
+        return empreinte;
+    }
+
+    private void retenir(OneShotToken token) {
+        long expiration = token.getExpirationDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        memoire.put(token.getEmpreinte(), new JetonEnMemoire(token.getType(), expiration));
+        roue.planifier(token.getEmpreinte(), expiration);
+    }
+
+    private Duration duree(OneShotToken.Type type) {
+        return switch (type) {
+            case PASSWORD_RESET -> Duration.ofMinutes(dureeResetMinutes);
+            case EMAIL_CONFIRMATION -> Duration.ofHours(dureeConfirmationHeures);
+        };
+    }
+
+    private static String empreinte(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static final class JetonEnMemoire {
+        private final OneShotToken.Type type;
+        // Date d'expiration, en millisecondes
+        private final long expiration;
+
+        private JetonEnMemoire(OneShotToken.Type type, long expiration) {
+            this.type = type;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.patisserie.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.patisserie.events.CompteursCommandesEvent;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.OrderItem;
+import com.example.patisserie.models.Payment;
+import com.example.patisserie.repositories.ProduitRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Compteurs de commandes par produit en write-behind.
+ * Chaque paiement réussi incrémente un LongAdder en mémoire (pas de verrou
+ * de ligne, pas de read-modify-write) ; un flush périodique écrit les deltas
+ * en un seul batch "compteur_commandes = compteur_commandes + ?".
+ * Au pire, un crash perd les incréments d'un intervalle de flush
+ * (ou de max-pending incréments).
+ * Les compteurs écrits ne sont pas une écriture sur le catalogue : ils sont
+ * annoncés par un CompteursCommandesEvent, au plus une fois par event-interval-ms,
+ * et seuls les classements s'en servent.
+ */
+@Service
+public class OrderCounterService {
+
+    private static final String UPDATE_COMPTEUR =
+            "UPDATE produit SET compteur_commandes = compteur_commandes + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private TopProduitsLeaderboard topProduitsLeaderboard;
+
+    @Value("${patisserie.order-counters.max-pending:1000}")
+    private long maxPending;
+
+    @Value("${patisserie.order-counters.event-interval-ms:60000}")
+    private long intervalleEvenements;
+
+    private final Map<Long, Compteur> compteurs = new ConcurrentHashMap<>();
+    private final LongAdder enAttente = new LongAdder();
+    private final AtomicBoolean flushAnticipe = new AtomicBoolean();
+    // Produits écrits depuis le dernier CompteursCommandesEvent ; modifié sous le verrou de flush()
+    private final Set<Long> aAnnoncer = new HashSet<>();
+    private long derniereAnnonce;
+    private final Counter incrementsEcrits;
+
+    public OrderCounterService(MeterRegistry meterRegistry) {
+        Gauge.builder("patisserie.order_counters.pending", enAttente, LongAdder::sum)
+                .description("Incréments de compteurCommandes pas encore écrits en base")
+                .register(meterRegistry);
+        this.incrementsEcrits = Counter.builder("patisserie.order_counters.flushed")
+                .description("Incréments de compteurCommandes écrits en base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compte les articles d'un paiement réussi. Dans une transaction,
+     * les incréments ne sont appliqués qu'après le commit.
+     */
+    public void recordPayment(Payment payment) {
+        if (payment.getOrderItems() == null || payment.getOrderItems().isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantites = new HashMap<>();
+        for (OrderItem item : payment.getOrderItems()) {
+            if (item.getProduct() != null && item.getProduct().getId() != null) {
+                int quantite = item.getQuantity() == null ? 1 : item.getQuantity();
+                quantites.merge(item.getProduct().getId(), quantite, Integer::sum);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    quantites.forEach(OrderCounterService.this::increment);
+                }
+            });
+        } else {
+            quantites.forEach(this::increment);
+        }
+    }
+
+    public void increment(Long produitId, int quantite) {
+        compteurs.computeIfAbsent(produitId, id -> new Compteur()).total.add(quantite);
+        enAttente.add(quantite);
+        topProduitsLeaderboard.recordOrder(produitId, quantite);
+        if (enAttente.sum() >= maxPending && flushAnticipe.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    // Commandes pas encore écrites en base pour ce produit
+    public long getPending(Long produitId) {
+        Compteur compteur = compteurs.get(produitId);
+        return compteur == null ? 0 : compteur.total.sum() - compteur.ecrit;
+    }
+
+    @Scheduled(fixedDelayString = "${patisserie.order-counters.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        flushAnticipe.set(false);
+        Map<Compteur, Long> totaux = new HashMap<>();
+        List<Object[]> lots = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        compteurs.forEach((id, compteur) -> {
+            long total = compteur.total.sum();
+            long delta = total - compteur.ecrit;
+            if (delta > 0) {
+                totaux.put(compteur, total);
+                lots.add(new Object[] { delta, id });
+                ids.add(id);
+            }
+        });
+        if (lots.isEmpty()) {
+            annoncer();
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_COMPTEUR, lots));
+
+        // Le total lu n'est marqué écrit qu'après le commit : un échec sera rejoué au prochain flush
+        long ecrits = 0;
+        for (Map.Entry<Compteur, Long> entry : totaux.entrySet()) {
+            ecrits += entry.getValue() - entry.getKey().ecrit;
+            entry.getKey().ecrit = entry.getValue();
+        }
+        enAttente.add(-ecrits);
+        incrementsEcrits.increment(ecrits);
+        aAnnoncer.addAll(ids);
+        annoncer();
+    }
+
+    // Publie les compteurs écrits si l'intervalle depuis la dernière annonce est écoulé
+    private void annoncer() {
+        long maintenant = System.currentTimeMillis();
+        if (aAnnoncer.isEmpty() || maintenant - derniereAnnonce < intervalleEvenements) {
+            return;
+        }
+        Map<Long, Integer> valeurs = new HashMap<>();
+        for (Object[] ligne : produitRepository.findCompteursCommandes(aAnnoncer)) {
+            valeurs.put((Long) ligne[0], (Integer) ligne[1]);
+        }
+        aAnnoncer.clear();
+        derniereAnnonce = maintenant;
+        eventPublisher.publishEvent(new CompteursCommandesEvent(valeurs));
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProduitChanged(ProduitChangedEvent event) {
+        if (event.getType() == ProduitChangedEvent.Type.DELETED) {
+            event.getProduits().forEach(p -> {
+                Compteur compteur = compteurs.remove(p.getId());
+                if (compteur != null) {
+                    enAttente.add(-(compteur.total.sum() - compteur.ecrit));
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class Compteur {
+        // Ne fait que croître : le delta à écrire est total - ecrit
+        private final LongAdder total = new LongAdder();
+        // Modifié uniquement sous le verrou de flush()
+        private volatile long ecrit;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.patisserie.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.patisserie.exceptions.ServiceSaturatedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hachage et vérification des mots de passe (BCrypt) sur un pool dédié et borné.
+ * Une rafale de connexions n'occupe au plus que "workers" cœurs : les threads
+ * Tomcat restants servent le catalogue et les paiements normalement. Quand la
+ * file est pleine, ou que l'attente dépasse le délai, la requête est refusée
+ * aussitôt (503 + Retry-After) au lieu de s'empiler.
+ */
+@Service
+public class PasswordHashingExecutor {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${patisserie.password-hashing.workers:2}")
+    private int workers;
+
+    @Value("${patisserie.password-hashing.queue-capacity:32}")
+    private int capaciteFile;
+
+    @Value("${patisserie.password-hashing.timeout-ms:5000}")
+    private long delaiMs;
+
+    @Value("${patisserie.password-hashing.retry-after-seconds:2}")
+    private long retryAfterSecondes;
+
+    private ThreadPoolExecutor executor;
+    private Timer dureeEncode;
+    private Timer dureeMatches;
+    private Timer attente;
+    private Counter refus;
+
+    @PostConstruct
+    void demarrer() {
+        AtomicInteger numero = new AtomicInteger();
+        ThreadFactory threads = r -> {
+            Thread thread = new Thread(r, "password-hashing-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), threads, new ThreadPoolExecutor.AbortPolicy());
+
+        dureeEncode = Timer.builder("patisserie.password_hashing")
+                .description("Durée d'un calcul BCrypt")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        dureeMatches = Timer.builder("patisserie.password_hashing")
+                .description("Durée d'un calcul BCrypt")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        attente = Timer.builder("patisserie.password_hashing.queue_wait")
+                .description("Attente dans la file avant le calcul BCrypt")
+                .register(meterRegistry);
+        refus = Counter.builder("patisserie.password_hashing.rejected")
+                .description("Demandes refusées (file pleine ou délai dépassé)")
+                .register(meterRegistry);
+        Gauge.builder("patisserie.password_hashing.queue", executor, e -> e.getQueue().size())
+                .description("Calculs BCrypt en attente")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void arreter() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String motDePasse) {
+        return executer(dureeEncode, () -> passwordEncoder.encode(motDePasse));
+    }
+
+    public boolean matches(String motDePasse, String hash) {
+        return executer(dureeMatches, () -> passwordEncoder.matches(motDePasse, hash));
+    }
+
+    // Hachage à refaire avec les paramètres actuels (sans préfixe, coût inférieur) ; sans calcul BCrypt
+    public boolean upgradeEncoding(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    private <T> T executer(Timer duree, Callable<T> calcul) {
+        long soumission = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                attente.record(System.nanoTime() - soumission, TimeUnit.NANOSECONDS);
+                return duree.recordCallable(calcul);
+            });
+        } catch (RejectedExecutionException e) {
+            refus.increment();
+            throw saturation();
+        }
+        try {
+            return future.get(delaiMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            refus.increment();
+            throw saturation();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw saturation();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Échec du calcul du mot de passe", e.getCause());
+        }
+    }
+
+    private ServiceSaturatedException saturation() {
+        return new ServiceSaturatedException(
+                "Trop de connexions simultanées, réessayez dans quelques secondes", retryAfterSecondes);
+    }
+}
@@ -1,15 +1,10 @@
 package com.example.patisserie.services;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
-
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import com.example.patisserie.models.PasswordResetToken;
+import com.example.patisserie.models.OneShotToken;
 import com.example.patisserie.models.Utilisateur;
-import com.example.patisserie.repositories.PasswordResetTokenRepository;
 import com.example.patisserie.repositories.UtilisateurRepository;
 
 @Service
@@ -18,14 +13,15 @@ public class PasswordResetService {
     @Autowired
     private UtilisateurRepository utilisateurRepository;
 
+    // Tokens hachés, à usage unique
     @Autowired
-    private PasswordResetTokenRepository tokenRepository;
+    private OneShotTokenStore tokenStore;
 
     @Autowired
     private EmailService emailService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
     /**
      * Envoie un token de réinitialisation de mot de passe à l'utilisateur.
@@ -38,15 +34,8 @@ public class PasswordResetService {
             Utilisateur utilisateur = utilisateurRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Utilisateur introuvable !"));
     
-            // Générer un token unique
-            String token = UUID.randomUUID().toString();
-    
-            // Créez et sauvegardez le token
-            PasswordResetToken resetToken = new PasswordResetToken();
-            resetToken.setToken(token);
-            resetToken.setUtilisateur(utilisateur);
-            resetToken.setExpirationDate(LocalDateTime.now().plusHours(1)); // Token valide 1 heure
-            tokenRepository.save(resetToken);
+            // Générer et enregistrer un token unique (valide 1 heure par défaut)
+            String token = tokenStore.emettre(OneShotToken.Type.PASSWORD_RESET, utilisateur);
     
             // Construire le lien de réinitialisation
             String resetLink = "http://localhost:8081/api/auth/reset-password?token=" + token;
@@ -72,29 +61,24 @@ public class PasswordResetService {
      * @param newPassword Le nouveau mot de passe
      */
     public void resetPassword(String token, String newPassword) {
-        // Vérifiez si le token existe et est valide
-        PasswordResetToken resetToken = tokenRepository.findByToken(token)
-                .orElseThrow(() -> new RuntimeException("Token invalide ou inexistant !"));
+        // Token invalide ou expiré : 400 sans passer par le pool BCrypt
+        tokenStore.verifier(OneShotToken.Type.PASSWORD_RESET, token);
 
-        // Vérifiez si le token a expiré
-        if (resetToken.getExpirationDate().isBefore(LocalDateTime.now())) {
-            tokenRepository.delete(resetToken); // Supprimez le token expiré
-            throw new RuntimeException("Le token a expiré !");
-        }
+        // Hacher avant de consommer le token : un pool saturé ne le fait pas perdre
+        String hash = passwordHashingExecutor.encode(newPassword);
+
+        // Vérifier le token (existant, non expiré) et le supprimer : il ne sert qu'une fois
+        Utilisateur utilisateur = tokenStore.consommer(OneShotToken.Type.PASSWORD_RESET, token);
 
         // Mettre à jour le mot de passe de l'utilisateur
-        Utilisateur utilisateur = resetToken.getUtilisateur();
-        utilisateur.setMotDePasse(passwordEncoder.encode(newPassword));
+        utilisateur.setMotDePasse(hash);
         utilisateurRepository.save(utilisateur);
-
-        // Supprimer le token après utilisation
-        tokenRepository.delete(resetToken);
     }
 
     /**
-     * Nettoie les tokens expirés dans la base de données.
+     * Nettoie les tokens expirés dans la base de données (aussi planifié, voir OneShotTokenStore).
      */
     public void cleanExpiredTokens() {
-        tokenRepository.deleteByExpirationDateBefore(LocalDateTime.now());
+        tokenStore.purgerExpires();
     }
 }
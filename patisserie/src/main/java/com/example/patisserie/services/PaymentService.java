@@ -1,7 +1,11 @@
 package com.example.patisserie.services;
 
+import com.example.patisserie.dto.OrderItemRequest;
+import com.example.patisserie.models.OrderItem;
 import com.example.patisserie.models.Payment;
+import com.example.patisserie.models.Produit;
 import com.example.patisserie.repositories.PaymentRepository;
+import com.example.patisserie.repositories.ProduitRepository;
 import com.example.patisserie.services.EmailService;
 import com.example.patisserie.exceptions.PaymentProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +18,15 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentService {
@@ -23,9 +34,21 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private OrderCounterService orderCounterService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
     @Value("${orange.api.key}")
     private String orangeApiKey;
 
@@ -39,10 +62,13 @@ public class PaymentService {
     private String mtnApiUrl;
 
     @Transactional
-    public Payment processMobilePayment(String operator, String phoneNumber, Double amount) {
+    public Payment processMobilePayment(String operator, String phoneNumber, Double amount,
+                                        List<OrderItemRequest> articles) {
         validateMobilePayment(operator, phoneNumber);
     
         Payment payment = new Payment();
+        // Avant tout débit : un panier invalide ne coûte rien au client
+        attacherArticles(payment, articles);
         payment.setPaymentMethod("MOBILE_MONEY");
         payment.setOperator(operator);
         payment.setPhoneNumber(phoneNumber);
@@ -60,7 +86,10 @@ public class PaymentService {
                 throw new PaymentProcessingException("Mobile money transfer verification failed");
             }
     
-            return paymentRepository.save(payment);
+            Payment saved = paymentRepository.save(payment);
+            orderCounterService.recordPayment(saved);
+            revenueRollupService.recordPayment(saved);
+            return saved;
         } catch (Exception e) {
             payment.setStatus("FAILED");
             paymentRepository.save(payment);
@@ -96,6 +125,8 @@ public class PaymentService {
     @Transactional
     public Payment processCardPayment(Map<String, Object> paymentDetails) {
         Payment payment = new Payment();
+        attacherArticles(payment, objectMapper.convertValue(paymentDetails.get("orderItems"),
+                new TypeReference<List<OrderItemRequest>>() { }));
         payment.setPaymentMethod("BANK_CARD");
         payment.setAmount((Double) paymentDetails.get("amount"));
         payment.setStatus("PENDING");
@@ -111,7 +142,10 @@ public class PaymentService {
                 throw new PaymentProcessingException("Bank card payment processing failed");
             }
 
-            return paymentRepository.save(payment);
+            Payment saved = paymentRepository.save(payment);
+            orderCounterService.recordPayment(saved);
+            revenueRollupService.recordPayment(saved);
+            return saved;
         } catch (Exception e) {
             payment.setStatus("FAILED");
             paymentRepository.save(payment);
@@ -119,6 +153,41 @@ public class PaymentService {
         }
     }
 
+    /**
+     * Articles du panier, enregistrés avec le paiement (cascade) : ils alimentent les
+     * compteurs de commandes, le classement et les agrégats de revenus. Le prix est
+     * celui du catalogue au moment du paiement, pas celui envoyé par le client.
+     */
+    private void attacherArticles(Payment payment, List<OrderItemRequest> articles) {
+        List<OrderItem> items = new ArrayList<>();
+        payment.setOrderItems(items);
+        if (articles == null || articles.isEmpty()) {
+            return;
+        }
+        List<Long> ids = articles.stream().map(OrderItemRequest::getProduitId).distinct().toList();
+        if (ids.contains(null)) {
+            throw new PaymentProcessingException("Order item without product id");
+        }
+        Map<Long, Produit> produits = produitRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Produit::getId, Function.identity()));
+        for (OrderItemRequest article : articles) {
+            Produit produit = produits.get(article.getProduitId());
+            if (produit == null) {
+                throw new PaymentProcessingException("Unknown product: " + article.getProduitId());
+            }
+            int quantite = article.getQuantity() == null ? 1 : article.getQuantity();
+            if (quantite < 1) {
+                throw new PaymentProcessingException("Invalid quantity for product " + produit.getId());
+            }
+            OrderItem item = new OrderItem();
+            item.setProduct(produit);
+            item.setQuantity(quantite);
+            item.setPrice(produit.getPrix());
+            item.setPayment(payment);
+            items.add(item);
+        }
+    }
+
     private void validateMobilePayment(String operator, String phoneNumber) {
         if (operator == null || operator.trim().isEmpty()) {
             throw new PaymentProcessingException("Operator is required");
@@ -191,4 +260,9 @@ public class PaymentService {
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
     }
+
+    // Tous les paiements en flux, à consommer dans une transaction (voir JsonStreamingService)
+    public Stream<Payment> streamAllPayments() {
+        return paymentRepository.streamAll();
+    }
 }
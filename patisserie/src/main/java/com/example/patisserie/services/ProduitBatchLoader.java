@@ -0,0 +1,87 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.patisserie.dto.ProduitBatch;
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+/**
+ * Chargement de plusieurs produits en une seule requête (findAllById), pour
+ * reconstruire un panier ou une commande sans un GET par article.
+ * Les demandes identiques en cours au même moment partagent la même requête SQL.
+ */
+@Service
+public class ProduitBatchLoader {
+
+    public static final int MAX_IDS = 200;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    // ids triés -> chargement en cours
+    private final Map<List<Long>, CompletableFuture<Map<Long, Produit>>> enCours = new ConcurrentHashMap<>();
+
+    public ProduitBatch getProduits(List<Long> ids) {
+        Set<Long> demandes = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(demandes::add);
+        }
+        if (demandes.size() > MAX_IDS) {
+            throw new BadRequestException("Trop de produits demandés (" + MAX_IDS + " maximum)");
+        }
+        if (demandes.isEmpty()) {
+            return new ProduitBatch(List.of(), List.of());
+        }
+
+        Map<Long, Produit> trouves = charger(demandes.stream().sorted().toList());
+        List<Produit> produits = new ArrayList<>(trouves.size());
+        List<Long> manquants = new ArrayList<>();
+        for (Long id : demandes) {
+            Produit produit = trouves.get(id);
+            if (produit != null) {
+                produits.add(produit);
+            } else {
+                manquants.add(id);
+            }
+        }
+        return new ProduitBatch(produits, manquants);
+    }
+
+    private Map<Long, Produit> charger(List<Long> cle) {
+        CompletableFuture<Map<Long, Produit>> nouveau = new CompletableFuture<>();
+        CompletableFuture<Map<Long, Produit>> existant = enCours.putIfAbsent(cle, nouveau);
+        if (existant != null) {
+            try {
+                return existant.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Map<Long, Produit> trouves = new HashMap<>();
+            produitRepository.findAllById(cle).forEach(p -> trouves.put(p.getId(), p));
+            nouveau.complete(trouves);
+            return trouves;
+        } catch (RuntimeException e) {
+            nouveau.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Les demandes suivantes relisent la base : pas de cache au-delà de la requête en cours
+            enCours.remove(cle, nouveau);
+        }
+    }
+}
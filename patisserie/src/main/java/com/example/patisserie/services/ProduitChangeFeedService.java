@@ -0,0 +1,239 @@
+package com.example.patisserie.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.patisserie.dto.ProduitChanges;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.models.ProduitChange;
+import com.example.patisserie.repositories.ProduitChangeRepository;
+import com.example.patisserie.repositories.ProduitRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Flux de changements du catalogue pour la synchronisation incrémentale des clients.
+ * Chaque écriture sur un produit lui attribue une nouvelle version, dans la
+ * transaction de l'écriture ; GET /api/produits/changes?since=v renvoie les
+ * produits modifiés et les ids supprimés depuis v au lieu du catalogue complet.
+ * Le journal ne garde que la dernière version de chaque produit ; les tombstones
+ * sont purgées après une période de rétention.
+ */
+@Service
+public class ProduitChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProduitChangeFeedService.class);
+
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String INIT_VERSION =
+            "INSERT INTO catalog_version (id, version, version_purgee) " +
+            "SELECT 1, 0, 0 WHERE NOT EXISTS (SELECT 1 FROM catalog_version WHERE id = 1)";
+    // Le verrou de ligne pris ici n'est relâché qu'au commit de l'écriture
+    private static final String RESERVER_VERSIONS =
+            "UPDATE catalog_version SET version = version + ? WHERE id = 1";
+    private static final String LIRE_VERSION = "SELECT version FROM catalog_version WHERE id = 1";
+    private static final String LIRE_ETAT = "SELECT version, version_purgee FROM catalog_version WHERE id = 1";
+
+    @Autowired
+    private ProduitChangeRepository produitChangeRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${patisserie.catalog-changes.tombstone-retention-days:30}")
+    private int retentionTombstonesJours;
+
+    // La ligne du compteur doit exister avant la première écriture sur le catalogue
+    @PostConstruct
+    void initCompteur() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INIT_VERSION));
+        } catch (DataIntegrityViolationException e) {
+            // Créée au même moment par une autre instance
+        }
+    }
+
+    /**
+     * Donne une version aux produits existants qui n'en ont pas encore
+     * (catalogue antérieur au journal), pour que since=0 renvoie tout le catalogue.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = produitChangeRepository.findIdsSansChangement();
+            if (ids.isEmpty()) {
+                return;
+            }
+            long version = reserverVersions(ids.size()) - ids.size();
+            // Relu sous le verrou : un autre démarrage a pu faire le travail entre-temps
+            ids = produitChangeRepository.findIdsSansChangement();
+            List<ProduitChange> changes = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                changes.add(nouveauChangement(id, ++version, false));
+            }
+            produitChangeRepository.saveAll(changes);
+            log.info("Journal du catalogue initialisé pour {} produits", ids.size());
+        });
+    }
+
+    /**
+     * Synchrone, dans la transaction de l'écrivain : le produit et sa version
+     * sont validés (ou annulés) ensemble.
+     */
+    @EventListener
+    @Transactional
+    public void onProduitChanged(ProduitChangedEvent event) {
+        List<Long> ids = event.getProduits().stream()
+                .map(Produit::getId)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Les lignes produit sont verrouillées avant le compteur de versions, dans le même ordre
+        // pour toutes les écritures sur le catalogue : pas d'interblocage entre écrivains
+        entityManager.flush();
+        long version = reserverVersions(ids.size()) - ids.size();
+        boolean supprime = event.getType() == ProduitChangedEvent.Type.DELETED;
+
+        Map<Long, ProduitChange> existants = produitChangeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ProduitChange::getProduitId, Function.identity()));
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<ProduitChange> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProduitChange change = existants.get(id);
+            if (change == null) {
+                change = nouveauChangement(id, ++version, supprime);
+            } else {
+                change.setVersion(++version);
+                change.setSupprime(supprime);
+                change.setDateChangement(maintenant);
+            }
+            changes.add(change);
+        }
+        produitChangeRepository.saveAll(changes);
+    }
+
+    /**
+     * Changements postérieurs à since, au plus limit, par version croissante.
+     * since=0 renvoie le catalogue complet (sans tombstones). Si since précède
+     * des tombstones déjà purgées, ou ne correspond à aucune version connue,
+     * la réponse repart de 0 avec resync=true : le client remplace alors son catalogue.
+     */
+    @Transactional(readOnly = true)
+    public ProduitChanges getChanges(long since, int limit) {
+        if (since < 0) {
+            throw new BadRequestException("Version invalide : " + since);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("La limite doit être comprise entre 1 et " + MAX_LIMIT);
+        }
+        Map<String, Object> etat = jdbcTemplate.queryForMap(LIRE_ETAT);
+        long versionCourante = ((Number) etat.get("version")).longValue();
+        long versionPurgee = ((Number) etat.get("version_purgee")).longValue();
+        boolean resync = since > versionCourante || (since > 0 && since < versionPurgee);
+        if (resync) {
+            since = 0;
+        }
+
+        List<ProduitChange> changes = produitChangeRepository.findAfter(since, PageRequest.of(0, limit + 1));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        List<Long> modifies = new ArrayList<>();
+        List<Long> supprimes = new ArrayList<>();
+        for (ProduitChange change : changes) {
+            if (!change.isSupprime()) {
+                modifies.add(change.getProduitId());
+            } else if (since > 0) {
+                supprimes.add(change.getProduitId());
+            }
+        }
+        Map<Long, Produit> parId = new LinkedHashMap<>();
+        modifies.forEach(id -> parId.put(id, null));
+        for (Produit produit : produitRepository.findAllById(modifies)) {
+            parId.put(produit.getId(), produit);
+        }
+        // Un produit supprimé depuis la lecture du journal arrivera en tombstone au prochain appel
+        List<Produit> produits = parId.values().stream().filter(Objects::nonNull).toList();
+
+        // Version du dernier changement lu, pas celle du compteur : une écriture validée
+        // entre les deux lectures ne doit pas être sautée
+        long version = changes.isEmpty() ? since : changes.get(changes.size() - 1).getVersion();
+        return new ProduitChanges(version, produits, supprimes, hasMore, resync);
+    }
+
+    /**
+     * Supprime les tombstones plus anciennes que la rétention et relève la version
+     * minimale acceptée dans since.
+     */
+    @Scheduled(cron = "${patisserie.catalog-changes.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public int purgerTombstones() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionTombstonesJours));
+        Long versionMax = jdbcTemplate.queryForObject(
+                "SELECT MAX(version) FROM produit_change WHERE supprime = true AND date_changement < ?",
+                Long.class, limite);
+        if (versionMax == null) {
+            return 0;
+        }
+        int purgees = jdbcTemplate.update(
+                "DELETE FROM produit_change WHERE supprime = true AND version <= ?", versionMax);
+        jdbcTemplate.update(
+                "UPDATE catalog_version SET version_purgee = ? WHERE id = 1 AND version_purgee < ?",
+                versionMax, versionMax);
+        log.info("{} tombstones du catalogue purgées (jusqu'à la version {})", purgees, versionMax);
+        return purgees;
+    }
+
+    // Réserve n versions consécutives et renvoie la dernière
+    private long reserverVersions(int n) {
+        jdbcTemplate.update(RESERVER_VERSIONS, n);
+        return jdbcTemplate.queryForObject(LIRE_VERSION, Long.class);
+    }
+
+    private static ProduitChange nouveauChangement(Long produitId, long version, boolean supprime) {
+        ProduitChange change = new ProduitChange();
+        change.setProduitId(produitId);
+        change.setVersion(version);
+        change.setSupprime(supprime);
+        change.setDateChangement(LocalDateTime.now());
+        return change;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.patisserie.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.Produit;
+
+/**
+ * Position dans un parcours keyset du catalogue, échangée avec le client
+ * sous forme de jeton opaque (base64url).
+ */
+final class ProduitCursor {
+
+    enum Tri {
+        CATEGORIE,
+        POPULARITE
+    }
+
+    private final Tri tri;
+    private final Long id;
+    // Catégorie (tri CATEGORIE, null pour les produits sans catégorie) ou compteur de commandes (tri POPULARITE)
+    private final String cle;
+
+    private ProduitCursor(Tri tri, Long id, String cle) {
+        this.tri = tri;
+        this.id = id;
+        this.cle = cle;
+    }
+
+    static ProduitCursor apres(Tri tri, Produit produit) {
+        String cle = tri == Tri.CATEGORIE
+                ? produit.getCategory()
+                : Integer.toString(produit.getCompteurCommandes());
+        return new ProduitCursor(tri, produit.getId(), cle);
+    }
+
+    static ProduitCursor decode(String token, Tri triAttendu) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            Tri tri = Tri.valueOf(parts[0]);
+            if (tri != triAttendu || parts.length != 3) {
+                throw new IllegalArgumentException("Curseur invalide pour ce tri");
+            }
+            Long id = Long.parseLong(parts[1]);
+            String cle = parts[2].isEmpty() ? null : parts[2].substring(1);
+            if (tri == Tri.POPULARITE) {
+                Integer.parseInt(cle);
+            }
+            return new ProduitCursor(tri, id, cle);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Curseur invalide");
+        }
+    }
+
+    String encode() {
+        // Préfixe '=' pour distinguer une catégorie vide d'une catégorie absente
+        String raw = tri.name() + "|" + id + "|" + (cle == null ? "" : "=" + cle);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String getCategory() {
+        return cle;
+    }
+
+    int getCompteur() {
+        return Integer.parseInt(cle);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.patisserie.dto.CategoryFacet;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+/**
+ * Facettes par catégorie (nombre de produits, prix min et max) pour construire
+ * les menus sans télécharger tout le catalogue.
+ * Sans requête : un GROUP BY mis en cache jusqu'à la prochaine écriture.
+ * Avec requête : agrégation des résultats de l'index de recherche, gardée dans
+ * un petit cache LRU par requête normalisée et par version de l'index.
+ */
+@Service
+public class ProduitFacetService {
+
+    private static final int MAX_REQUETES_EN_CACHE = 256;
+
+    private static final Comparator<String> PAR_CATEGORIE = Comparator.nullsLast(Comparator.naturalOrder());
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private ProduitSearchIndex produitSearchIndex;
+
+    // Incrémentée à chaque écriture : un calcul commencé avant n'est pas mis en cache
+    private final AtomicLong generation = new AtomicLong();
+    private volatile List<CategoryFacet> facettesGlobales;
+
+    private final Map<String, FacettesRequete> parRequete = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FacettesRequete> eldest) {
+                    return size() > MAX_REQUETES_EN_CACHE;
+                }
+            });
+
+    public List<CategoryFacet> getFacettes(String query) {
+        String cle = query == null ? "" : String.join(" ", SearchTextNormalizer.tokens(query));
+        return cle.isEmpty() ? getFacettesGlobales() : getFacettesRequete(query, cle);
+    }
+
+    @TransactionalEventListener
+    public void onProduitChanged(ProduitChangedEvent event) {
+        generation.incrementAndGet();
+        facettesGlobales = null;
+        parRequete.clear();
+    }
+
+    private List<CategoryFacet> getFacettesGlobales() {
+        List<CategoryFacet> facettes = facettesGlobales;
+        if (facettes != null) {
+            return facettes;
+        }
+        long debut = generation.get();
+        List<CategoryFacet> calculees = new ArrayList<>();
+        for (Object[] ligne : produitRepository.agregerParCategorie()) {
+            calculees.add(new CategoryFacet((String) ligne[0], ((Number) ligne[1]).longValue(),
+                    ((Number) ligne[2]).doubleValue(), ((Number) ligne[3]).doubleValue()));
+        }
+        calculees = List.copyOf(calculees);
+        if (generation.get() == debut) {
+            facettesGlobales = calculees;
+        }
+        return calculees;
+    }
+
+    private List<CategoryFacet> getFacettesRequete(String query, String cle) {
+        // La version de l'index garantit qu'on n'agrège pas un index pas encore mis à jour
+        long version = produitSearchIndex.getVersion();
+        FacettesRequete enCache = parRequete.get(cle);
+        if (enCache != null && enCache.version == version) {
+            return enCache.facettes;
+        }
+        Map<String, double[]> agregats = new TreeMap<>(PAR_CATEGORIE);
+        for (Produit produit : produitSearchIndex.searchAll(query)) {
+            double[] agregat = agregats.computeIfAbsent(produit.getCategory(),
+                    c -> new double[] { 0, Double.MAX_VALUE, -Double.MAX_VALUE });
+            agregat[0]++;
+            agregat[1] = Math.min(agregat[1], produit.getPrix());
+            agregat[2] = Math.max(agregat[2], produit.getPrix());
+        }
+        List<CategoryFacet> facettes = new ArrayList<>(agregats.size());
+        agregats.forEach((category, agregat) ->
+                facettes.add(new CategoryFacet(category, (long) agregat[0], agregat[1], agregat[2])));
+        List<CategoryFacet> resultat = List.copyOf(facettes);
+        if (produitSearchIndex.getVersion() == version) {
+            parRequete.put(cle, new FacettesRequete(version, resultat));
+        }
+        return resultat;
+    }
+
+    private static final class FacettesRequete {
+        private final long version;
+        private final List<CategoryFacet> facettes;
+
+        private FacettesRequete(long version, List<CategoryFacet> facettes) {
+            this.version = version;
+            this.facettes = facettes;
+        }
+    }
+}
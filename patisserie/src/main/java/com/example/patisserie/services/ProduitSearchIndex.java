@@ -0,0 +1,241 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+/**
+ * Index inversé en mémoire sur nom, description et catégorie des produits.
+ * Remplace les LIKE '%mot%' (parcours complet de la table) : chaque terme
+ * normalisé pointe vers les produits qui le contiennent, et un index de
+ * trigrammes sur le vocabulaire tolère les fautes de frappe et les préfixes.
+ * Construit au démarrage puis mis à jour produit par produit après chaque écriture.
+ */
+@Service
+public class ProduitSearchIndex {
+
+    private static final float POIDS_NOM = 3f;
+    private static final float POIDS_CATEGORIE = 2f;
+    private static final float POIDS_DESCRIPTION = 1f;
+
+    // Similarité minimale (Dice sur les trigrammes) pour accepter un terme approché
+    private static final float SIMILARITE_MIN = 0.5f;
+    private static final float SIMILARITE_PREFIXE = 0.9f;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    // terme -> (id produit -> poids du meilleur champ)
+    private final Map<String, Map<Long, Float>> postings = new ConcurrentHashMap<>();
+    // trigramme -> termes du vocabulaire qui le contiennent
+    private final Map<String, Set<String>> trigrammes = new ConcurrentHashMap<>();
+    // Incrémentée à chaque modification de l'index, pour invalider les caches dérivés
+    private volatile long version;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        documents.clear();
+        postings.clear();
+        trigrammes.clear();
+        produitRepository.findAll().forEach(this::indexer);
+        version++;
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProduitChanged(ProduitChangedEvent event) {
+        for (Produit produit : event.getProduits()) {
+            retirer(produit.getId());
+            if (event.getType() != ProduitChangedEvent.Type.DELETED) {
+                indexer(produit);
+            }
+        }
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Recherche classée : d'abord les produits qui couvrent le plus de mots de
+     * la requête, puis par score (similarité x poids du champ).
+     */
+    public List<Produit> search(String query, int page, int size) {
+        if (page < 0 || size < 1) {
+            return List.of();
+        }
+        List<Resultat> classes = classer(query);
+        // En long : page * size peut dépasser Integer.MAX_VALUE
+        long debut = (long) page * size;
+        if (debut >= classes.size()) {
+            return List.of();
+        }
+        List<Produit> resultatPage = new ArrayList<>(Math.min(size, classes.size()));
+        for (int i = (int) debut; i < classes.size() && resultatPage.size() < size; i++) {
+            Document document = documents.get(classes.get(i).id);
+            if (document != null) {
+                resultatPage.add(document.produit);
+            }
+        }
+        return resultatPage;
+    }
+
+    // Tous les produits correspondant à la requête, sans ordre particulier
+    public List<Produit> searchAll(String query) {
+        List<Produit> produits = new ArrayList<>();
+        for (Resultat resultat : trouver(query).values()) {
+            Document document = documents.get(resultat.id);
+            if (document != null) {
+                produits.add(document.produit);
+            }
+        }
+        return produits;
+    }
+
+    private List<Resultat> classer(String query) {
+        List<Resultat> classes = new ArrayList<>(trouver(query).values());
+        classes.sort(Comparator.comparingInt((Resultat r) -> r.motsCouverts).reversed()
+                .thenComparing(Comparator.comparingDouble((Resultat r) -> r.score).reversed())
+                .thenComparing(r -> r.id));
+        return classes;
+    }
+
+    private Map<Long, Resultat> trouver(String query) {
+        Map<Long, Resultat> resultats = new HashMap<>();
+        for (String mot : SearchTextNormalizer.tokens(query)) {
+            Map<Long, Float> meilleurParProduit = new HashMap<>();
+            for (Map.Entry<String, Float> terme : termesProches(mot).entrySet()) {
+                Map<Long, Float> produits = postings.get(terme.getKey());
+                if (produits == null) {
+                    continue;
+                }
+                for (Map.Entry<Long, Float> posting : produits.entrySet()) {
+                    meilleurParProduit.merge(posting.getKey(), terme.getValue() * posting.getValue(), Math::max);
+                }
+            }
+            meilleurParProduit.forEach((id, score) ->
+                    resultats.computeIfAbsent(id, Resultat::new).ajouter(score));
+        }
+        return resultats;
+    }
+
+    // Termes du vocabulaire proches du mot recherché, avec leur similarité
+    private Map<String, Float> termesProches(String mot) {
+        Map<String, Float> proches = new HashMap<>();
+        if (postings.containsKey(mot)) {
+            proches.put(mot, 1f);
+        }
+        Set<String> trigrammesMot = SearchTextNormalizer.trigrams(mot);
+        Map<String, Integer> communs = new HashMap<>();
+        for (String trigramme : trigrammesMot) {
+            Set<String> termes = trigrammes.get(trigramme);
+            if (termes != null) {
+                for (String terme : termes) {
+                    communs.merge(terme, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> candidat : communs.entrySet()) {
+            String terme = candidat.getKey();
+            if (terme.equals(mot)) {
+                continue;
+            }
+            float similarite = terme.startsWith(mot)
+                    ? SIMILARITE_PREFIXE
+                    : 2f * candidat.getValue() / (trigrammesMot.size() + terme.length());
+            if (similarite >= SIMILARITE_MIN) {
+                proches.put(terme, similarite);
+            }
+        }
+        return proches;
+    }
+
+    private void indexer(Produit produit) {
+        Map<String, Float> termes = new HashMap<>();
+        ajouterChamp(termes, produit.getNom(), POIDS_NOM);
+        ajouterChamp(termes, produit.getCategory(), POIDS_CATEGORIE);
+        ajouterChamp(termes, produit.getDescription(), POIDS_DESCRIPTION);
+
+        documents.put(produit.getId(), new Document(produit, termes.keySet()));
+        termes.forEach((terme, poids) -> {
+            postings.computeIfAbsent(terme, t -> {
+                for (String trigramme : SearchTextNormalizer.trigrams(t)) {
+                    trigrammes.computeIfAbsent(trigramme, k -> ConcurrentHashMap.newKeySet()).add(t);
+                }
+                return new ConcurrentHashMap<>();
+            }).put(produit.getId(), poids);
+        });
+    }
+
+    private void retirer(Long id) {
+        Document ancien = documents.remove(id);
+        if (ancien == null) {
+            return;
+        }
+        for (String terme : ancien.termes) {
+            Map<Long, Float> produits = postings.get(terme);
+            if (produits == null) {
+                continue;
+            }
+            produits.remove(id);
+            if (produits.isEmpty()) {
+                postings.remove(terme);
+                for (String trigramme : SearchTextNormalizer.trigrams(terme)) {
+                    Set<String> termes = trigrammes.get(trigramme);
+                    if (termes != null) {
+                        termes.remove(terme);
+                        if (termes.isEmpty()) {
+                            trigrammes.remove(trigramme);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void ajouterChamp(Map<String, Float> termes, String texte, float poids) {
+        for (String terme : SearchTextNormalizer.tokens(texte)) {
+            termes.merge(terme, poids, Math::max);
+        }
+    }
+
+    private static final class Document {
+        private final Produit produit;
+        private final Set<String> termes;
+
+        private Document(Produit produit, Set<String> termes) {
+            this.produit = produit;
+            this.termes = Set.copyOf(termes);
+        }
+    }
+
+    private static final class Resultat {
+        private final Long id;
+        private int motsCouverts;
+        private double score;
+
+        private Resultat(Long id) {
+            this.id = id;
+        }
+
+        private void ajouter(float scoreMot) {
+            motsCouverts++;
+            score += scoreMot;
+        }
+    }
+}
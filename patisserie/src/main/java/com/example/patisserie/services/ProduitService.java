@@ -1,20 +1,23 @@
 package com.example.patisserie.services;
 
+import com.example.patisserie.dto.ProduitPage;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.exceptions.BadRequestException;
 import com.example.patisserie.models.Produit;
 import com.example.patisserie.repositories.ProduitRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProduitService {
@@ -22,15 +25,29 @@ public class ProduitService {
     @Autowired
     private ProduitRepository produitRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProduitSearchIndex produitSearchIndex;
+
+    @Autowired
+    private TopProduitsLeaderboard topProduitsLeaderboard;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageStore imageStore;
+
     // Ajouter un produit avec une image
+    @Transactional
     public Produit addProduit(Produit produit, MultipartFile file) throws IOException {
-        String categoryFolder = produit.getCategory();
-        String fileName = file.getOriginalFilename();
-        Path filePath = Paths.get("public/images/" + categoryFolder + "/" + fileName);
-        Files.createDirectories(filePath.getParent());
-        Files.write(filePath, file.getBytes());
-        produit.setImage("/images/" + categoryFolder + "/" + fileName);
-        return produitRepository.save(produit);
+        produit.setImage(imageStore.store(file));
+        Produit saved = produitRepository.save(produit);
+        eventPublisher.publishEvent(ProduitChangedEvent.created(saved));
+        imageVariantService.planifier(saved);
+        return saved;
     }
 
     // Récupérer tous les produits
@@ -38,6 +55,11 @@ public class ProduitService {
         return produitRepository.findAll();
     }
 
+    // Tous les produits en flux, à consommer dans une transaction (voir JsonStreamingService)
+    public Stream<Produit> streamAllProduits() {
+        return produitRepository.streamAll();
+    }
+
     // Récupérer un produit par ID
     public Produit getProduitById(Long id) {
         Optional<Produit> produit = produitRepository.findById(id);
@@ -45,37 +67,116 @@ public class ProduitService {
     }
 
     // Mettre à jour un produit
+    @Transactional
     public Produit updateProduit(Long id, Produit produitDetails) {
         Produit produit = getProduitById(id);
         produit.setNom(produitDetails.getNom());
         produit.setPrix(produitDetails.getPrix());
         produit.setImage(produitDetails.getImage());
         produit.setDescription(produitDetails.getDescription());
-        produit.setCompteurCommandes(produitDetails.getCompteurCommandes());
-        return produitRepository.save(produit);
+        // Nouvelle image : les anciennes variantes ne correspondent plus, on sert l'original en attendant
+        if (produit.getImageThumbnail() != null && produit.getImage() != null && !produit.getImageThumbnail()
+                .equals(ImageVariantService.urlVariante(produit.getImage(), ImageVariantService.Variante.THUMBNAIL))) {
+            produit.setImageThumbnail(null);
+            produit.setImageMedium(null);
+            produit.setImageFull(null);
+        }
+        Produit saved = produitRepository.save(produit);
+        eventPublisher.publishEvent(ProduitChangedEvent.updated(saved));
+        // Sans effet si les variantes de cette image sont déjà à jour
+        imageVariantService.planifier(saved);
+        return saved;
     }
 
-    // Supprimer un produit
+    // Supprimer un produit ; sans effet si l'id est inconnu ou déjà supprimé
+    @Transactional
     public void deleteProduit(Long id) {
-        produitRepository.deleteById(id);
+        produitRepository.findById(id).ifPresent(produit -> {
+            // Deux suppressions concurrentes : seule celle qui retire la ligne l'annonce
+            if (produitRepository.supprimer(id) == 1) {
+                eventPublisher.publishEvent(ProduitChangedEvent.deleted(produit));
+            }
+        });
     }
 
-    // Rechercher des produits par nom (avec pagination)
+    // Rechercher des produits (nom, description, catégorie) avec pagination, via l'index en mémoire
     public List<Produit> searchProduits(String keyword, int page, int size) {
-        PageRequest pageable = PageRequest.of(page, size);
-        return produitRepository.findByNomContainingIgnoreCase(keyword, pageable).getContent();
+        return produitSearchIndex.search(keyword, page, size);
     }
 
-    // Obtenir les produits les plus commandés
-    public List<Produit> getTopProduits() {
-        List<Produit> produits = produitRepository.findAll();
-        return produits.stream()
-                .sorted((p1, p2) -> Integer.compare(p2.getCompteurCommandes(), p1.getCompteurCommandes()))
-                .limit(10)
-                .collect(Collectors.toList());
+    // Obtenir les produits les plus commandés (classement en mémoire, sans requête SQL)
+    public List<Produit> getTopProduits(String category, Integer jours) {
+        return getProduitsLesPlusCommandes(category, jours, 0, 10);
     }
 
     public List<Produit> getProduitsLesPlusCommandes(Pageable pageable) {
-        return produitRepository.findProduitsLesPlusCommandes(pageable);
+        return getProduitsLesPlusCommandes(null, null, pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    /**
+     * @param jours null pour le classement de tous les temps, sinon le nombre de jours glissants
+     */
+    public List<Produit> getProduitsLesPlusCommandes(String category, Integer jours, int page, int size) {
+        int offset;
+        try {
+            offset = Math.multiplyExact(page, size);
+        } catch (ArithmeticException e) {
+            throw new BadRequestException("Page hors limites");
+        }
+        if (jours == null) {
+            return topProduitsLeaderboard.top(category, offset, size);
+        }
+        if (jours < 1 || jours > topProduitsLeaderboard.getRetentionJours()) {
+            throw new BadRequestException("La période doit être comprise entre 1 et "
+                    + topProduitsLeaderboard.getRetentionJours() + " jours");
+        }
+        return topProduitsLeaderboard.topPeriode(jours, category, offset, size);
+    }
+
+    /**
+     * Parcours du catalogue par curseur. Chaque page reprend après la dernière clé
+     * de la précédente, la latence ne dépend donc pas de la profondeur de la page.
+     *
+     * @param tri      "categorie" (category, id) ou "popularite" (compteurCommandes desc, id desc)
+     * @param category filtre optionnel sur la catégorie
+     * @param cursor   curseur renvoyé par la page précédente, null pour la première page
+     */
+    public ProduitPage scrollProduits(String tri, String category, String cursor, int size) {
+        ProduitCursor.Tri ordre = "popularite".equalsIgnoreCase(tri)
+                ? ProduitCursor.Tri.POPULARITE
+                : ProduitCursor.Tri.CATEGORIE;
+        ProduitCursor position = cursor == null || cursor.isEmpty() ? null : ProduitCursor.decode(cursor, ordre);
+        // Un élément de plus pour savoir s'il existe une page suivante
+        Pageable limite = PageRequest.of(0, size + 1);
+
+        List<Produit> produits;
+        if (ordre == ProduitCursor.Tri.POPULARITE) {
+            int compteur = position == null ? Integer.MAX_VALUE : position.getCompteur();
+            Long id = position == null ? Long.MAX_VALUE : position.getId();
+            produits = category == null
+                    ? produitRepository.findParPopulariteApres(compteur, id, limite)
+                    : produitRepository.findDansCategorieParPopulariteApres(category, compteur, id, limite);
+        } else if (category != null) {
+            Long id = position == null ? 0L : position.getId();
+            produits = produitRepository.findDansCategorieApres(category, id, limite);
+        } else if (position != null && position.getCategory() == null) {
+            produits = produitRepository.findSansCategorieApres(position.getId(), limite);
+        } else {
+            produits = position == null
+                    ? produitRepository.findParCategorieApres("", 0L, limite)
+                    : produitRepository.findParCategorieApres(position.getCategory(), position.getId(), limite);
+            // Fin des catégories atteinte : la page se complète avec les produits sans catégorie
+            if (produits.size() <= size) {
+                produits = new ArrayList<>(produits);
+                produits.addAll(produitRepository.findSansCategorieApres(0L,
+                        PageRequest.of(0, size + 1 - produits.size())));
+            }
+        }
+
+        if (produits.size() <= size) {
+            return new ProduitPage(produits, null);
+        }
+        List<Produit> page = produits.subList(0, size);
+        return new ProduitPage(page, ProduitCursor.apres(ordre, page.get(size - 1)).encode());
     }
 }
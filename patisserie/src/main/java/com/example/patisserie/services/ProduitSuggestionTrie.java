@@ -0,0 +1,199 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.patisserie.dto.ProduitSuggestion;
+import com.example.patisserie.events.CompteursCommandesEvent;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.repositories.ProduitRepository;
+
+/**
+ * Autocomplétion sur le nom des produits.
+ * Trie immuable sur les noms normalisés (et sur chaque début de mot, pour que
+ * "choco" trouve "Gâteau au chocolat"). Chaque nœud garde ses MAX_SUGGESTIONS
+ * meilleurs produits, classés par compteurCommandes : une recherche coûte la
+ * longueur du préfixe, sans requête SQL. Le trie est reconstruit puis
+ * remplacé d'un bloc à chaque écriture sur le catalogue, et à chaque annonce
+ * des compteurs de commandes (au plus une fois par intervalle).
+ */
+@Service
+public class ProduitSuggestionTrie {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Entree> PAR_POIDS = Comparator
+            .comparingInt((Entree e) -> e.poids).reversed()
+            .thenComparing(e -> e.suggestion.getId());
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private final Map<Long, Entree> entrees = new ConcurrentHashMap<>();
+
+    private volatile Noeud racine = Noeud.VIDE;
+
+    public List<ProduitSuggestion> suggest(String prefix, int limit) {
+        String cle = normaliser(prefix);
+        if (cle.isEmpty()) {
+            return List.of();
+        }
+        Noeud noeud = racine;
+        for (int i = 0; i < cle.length() && noeud != null; i++) {
+            noeud = noeud.enfant(cle.charAt(i));
+        }
+        if (noeud == null) {
+            return List.of();
+        }
+        int n = Math.min(limit, noeud.meilleurs.length);
+        List<ProduitSuggestion> suggestions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            suggestions.add(noeud.meilleurs[i].suggestion);
+        }
+        return suggestions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        entrees.clear();
+        produitRepository.findAll().forEach(p -> entrees.put(p.getId(), new Entree(p)));
+        racine = construire();
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProduitChanged(ProduitChangedEvent event) {
+        for (Produit produit : event.getProduits()) {
+            if (event.getType() == ProduitChangedEvent.Type.DELETED) {
+                entrees.remove(produit.getId());
+            } else {
+                entrees.put(produit.getId(), new Entree(produit));
+            }
+        }
+        racine = construire();
+    }
+
+    // Nouveaux poids ; les noms, donc la forme du trie, sont inchangés
+    @EventListener
+    public synchronized void onCompteursCommandes(CompteursCommandesEvent event) {
+        boolean change = false;
+        for (Map.Entry<Long, Integer> compteur : event.getCompteurs().entrySet()) {
+            Entree entree = entrees.get(compteur.getKey());
+            if (entree != null && entree.poids != compteur.getValue()) {
+                entrees.put(compteur.getKey(), new Entree(entree.cle, compteur.getValue(), entree.suggestion));
+                change = true;
+            }
+        }
+        if (change) {
+            racine = construire();
+        }
+    }
+
+    private Noeud construire() {
+        Constructeur racineConstruction = new Constructeur();
+        for (Entree entree : entrees.values()) {
+            String nom = entree.cle;
+            for (int debut = 0; debut < nom.length(); debut++) {
+                if (debut == 0 || nom.charAt(debut - 1) == ' ') {
+                    racineConstruction.inserer(nom, debut, entree);
+                }
+            }
+        }
+        return racineConstruction.figer();
+    }
+
+    private static String normaliser(String texte) {
+        return SearchTextNormalizer.normalize(texte).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private static final class Entree {
+        private final String cle;
+        private final int poids;
+        private final ProduitSuggestion suggestion;
+
+        private Entree(Produit produit) {
+            this.cle = normaliser(produit.getNom());
+            this.poids = produit.getCompteurCommandes();
+            String image = produit.getImageThumbnail() != null ? produit.getImageThumbnail() : produit.getImage();
+            this.suggestion = new ProduitSuggestion(produit.getId(), produit.getNom(), image);
+        }
+
+        private Entree(String cle, int poids, ProduitSuggestion suggestion) {
+            this.cle = cle;
+            this.poids = poids;
+            this.suggestion = suggestion;
+        }
+    }
+
+    // Nœud figé : étiquettes triées + enfants alignés, recherche dichotomique
+    private static final class Noeud {
+        private static final Noeud VIDE = new Noeud(new char[0], new Noeud[0], new Entree[0]);
+
+        private final char[] etiquettes;
+        private final Noeud[] enfants;
+        private final Entree[] meilleurs;
+
+        private Noeud(char[] etiquettes, Noeud[] enfants, Entree[] meilleurs) {
+            this.etiquettes = etiquettes;
+            this.enfants = enfants;
+            this.meilleurs = meilleurs;
+        }
+
+        private Noeud enfant(char c) {
+            int i = Arrays.binarySearch(etiquettes, c);
+            return i >= 0 ? enfants[i] : null;
+        }
+    }
+
+    private static final class Constructeur {
+        private final TreeMap<Character, Constructeur> enfants = new TreeMap<>();
+        private final List<Entree> terminales = new ArrayList<>();
+
+        private void inserer(String cle, int position, Entree entree) {
+            Constructeur noeud = this;
+            for (int i = position; i < cle.length(); i++) {
+                noeud = noeud.enfants.computeIfAbsent(cle.charAt(i), c -> new Constructeur());
+            }
+            noeud.terminales.add(entree);
+        }
+
+        private Noeud figer() {
+            char[] etiquettes = new char[enfants.size()];
+            Noeud[] figes = new Noeud[enfants.size()];
+            List<Entree> candidats = new ArrayList<>(terminales);
+            int i = 0;
+            for (Map.Entry<Character, Constructeur> enfant : enfants.entrySet()) {
+                etiquettes[i] = enfant.getKey();
+                figes[i] = enfant.getValue().figer();
+                candidats.addAll(Arrays.asList(figes[i].meilleurs));
+                i++;
+            }
+            // Un même produit peut remonter par plusieurs débuts de mot
+            candidats.sort(PAR_POIDS);
+            Set<Long> vus = new HashSet<>();
+            List<Entree> meilleurs = new ArrayList<>(MAX_SUGGESTIONS);
+            for (Entree candidat : candidats) {
+                if (meilleurs.size() == MAX_SUGGESTIONS) {
+                    break;
+                }
+                if (vus.add(candidat.suggestion.getId())) {
+                    meilleurs.add(candidat);
+                }
+            }
+            return new Noeud(etiquettes, figes, meilleurs.toArray(new Entree[0]));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.patisserie.config.RateLimitProperties;
+import com.example.patisserie.config.RateLimitProperties.Limite;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Seaux à jetons en mémoire, sans verrou : chaque clé n'est qu'un AtomicLong
+ * (algorithme GCRA, équivalent à un seau à jetons) mis à jour par CAS, dans une
+ * ConcurrentHashMap dont les segments absorbent la concurrence entre clés.
+ * Un seau redevenu plein ne porte plus d'information : il est retiré au
+ * nettoyage périodique, et les plus inactifs le sont aussi au-delà de max-keys.
+ */
+@Service
+public class RateLimiter {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Instant (nanoTime) où le seau sera de nouveau plein
+    private final Map<String, AtomicLong> seaux = new ConcurrentHashMap<>();
+    private final AtomicBoolean nettoyageEnCours = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("patisserie.rate_limit.keys", seaux, Map::size)
+                .description("Clés (IP, email) suivies par le limiteur de débit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consomme un jeton pour cette clé. Renvoie 0 si la requête passe, sinon
+     * l'attente en nanosecondes avant le prochain jeton.
+     */
+    public long consommer(String route, String type, String cle, Limite limite) {
+        long intervalle = TimeUnit.MINUTES.toNanos(1) / Math.max(1, limite.getPerMinute());
+        long tolerance = intervalle * (Math.max(1, limite.getCapacity()) - 1);
+        long maintenant = System.nanoTime();
+
+        String id = route + ':' + type + ':' + cle;
+        AtomicLong seau = seaux.get(id);
+        if (seau == null) {
+            if (seaux.size() >= properties.getMaxKeys()) {
+                nettoyer(true);
+            }
+            seau = seaux.computeIfAbsent(id, k -> new AtomicLong(maintenant));
+        }
+        while (true) {
+            long plein = seau.get();
+            long base = plein - maintenant > 0 ? plein : maintenant;
+            long attente = base - maintenant - tolerance;
+            if (attente > 0) {
+                meterRegistry.counter("patisserie.rate_limit.rejected", "route", route, "key", type).increment();
+                return attente;
+            }
+            if (seau.compareAndSet(plein, base + intervalle)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${patisserie.rate-limit.sweep-interval-ms:60000}")
+    public void nettoyer() {
+        nettoyer(false);
+    }
+
+    private void nettoyer(boolean depassement) {
+        if (!nettoyageEnCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long maintenant = System.nanoTime();
+            seaux.entrySet().removeIf(e -> e.getValue().get() - maintenant <= 0);
+            if (depassement && seaux.size() >= properties.getMaxKeys()) {
+                // Toujours trop de clés actives : on oublie le dixième le plus proche d'être plein
+                List<Map.Entry<String, AtomicLong>> entrees = new ArrayList<>(seaux.entrySet());
+                entrees.sort(Comparator.comparingLong(e -> e.getValue().get() - maintenant));
+                entrees.subList(0, Math.max(1, entrees.size() / 10))
+                        .forEach(e -> seaux.remove(e.getKey(), e.getValue()));
+            }
+        } finally {
+            nettoyageEnCours.set(false);
+        }
+    }
+}
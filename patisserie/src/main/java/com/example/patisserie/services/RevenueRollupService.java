@@ -0,0 +1,276 @@
+package com.example.patisserie.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.patisserie.exceptions.ConflictException;
+import com.example.patisserie.models.OrderItem;
+import com.example.patisserie.models.Payment;
+import com.example.patisserie.models.RevenueRollup;
+import com.example.patisserie.models.RevenueRollup.Dimension;
+import com.example.patisserie.models.RevenueRollup.Granularite;
+import com.example.patisserie.repositories.PaymentRepository;
+import com.example.patisserie.repositories.RevenueRollupRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Agrégats de chiffre d'affaires (par produit, par catégorie, total ; par heure,
+ * par jour, cumulé). Chaque paiement validé y est ajouté après le commit du
+ * paiement, dans sa propre transaction : les tableaux de bord lisent quelques
+ * lignes au lieu de recalculer SUM(prix * compteurCommandes) sur toute la table.
+ * Un échec de cette écriture est journalisé, jamais remonté au paiement ;
+ * rebuild() rattrape les agrégats manquants.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    public static final String CLE_TOTAL = "*";
+
+    private static final LocalDateTime DEBUT_CUMUL = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int TAILLE_LOT_RECONSTRUCTION = 500;
+
+    // Upsert PostgreSQL sur la contrainte unique (dimension, cle, granularite, debut)
+    private static final String UPSERT =
+            "INSERT INTO revenue_rollup (dimension, cle, granularite, debut, montant, quantite) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (dimension, cle, granularite, debut) DO UPDATE SET " +
+            "montant = revenue_rollup.montant + EXCLUDED.montant, " +
+            "quantite = revenue_rollup.quantite + EXCLUDED.quantite";
+
+    // Bloque les upserts (pas les lectures) jusqu'à la fin de la reconstruction
+    private static final String VERROUILLER = "LOCK TABLE revenue_rollup IN EXCLUSIVE MODE";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate reconstruction;
+    private TransactionTemplate nouvelleTransaction;
+
+    private final AtomicBoolean reconstructionEnCours = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        reconstruction = new TransactionTemplate(transactionManager);
+        reconstruction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        nouvelleTransaction = new TransactionTemplate(transactionManager);
+        nouvelleTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ajoute un paiement validé aux agrégats. Dans une transaction, l'écriture
+     * n'a lieu qu'après le commit : le paiement est enregistré quoi qu'il arrive ici.
+     */
+    public void recordPayment(Payment payment) {
+        if (!payment.isSuccessful()) {
+            return;
+        }
+        // Calculé tout de suite, tant que les articles et leurs produits sont chargés
+        Map<Bucket, double[]> buckets = new HashMap<>();
+        fold(payment, buckets);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ecrireSansEchec(payment.getId(), buckets);
+                }
+            });
+        } else {
+            ecrireSansEchec(payment.getId(), buckets);
+        }
+    }
+
+    /**
+     * Recalcule tous les agrégats depuis l'historique des paiements validés.
+     * La table est verrouillée avant la première lecture : les upserts des paiements
+     * validés pendant la reconstruction attendent son commit. Les paiements sont
+     * ensuite lus dans un seul instantané REPEATABLE READ, pris après le verrou :
+     * chaque paiement est compté soit par la reconstruction, soit par son upsert.
+     *
+     * @throws ConflictException si une reconstruction est déjà en cours
+     */
+    public long rebuild() {
+        if (!reconstructionEnCours.compareAndSet(false, true)) {
+            throw new ConflictException("Reconstruction des agrégats déjà en cours");
+        }
+        try {
+            return reconstruction.execute(status -> reconstruire());
+        } finally {
+            reconstructionEnCours.set(false);
+        }
+    }
+
+    private long reconstruire() {
+        // Avant toute requête : l'instantané de la transaction est pris à la suivante
+        jdbcTemplate.execute(VERROUILLER);
+        revenueRollupRepository.deleteAllInBatch();
+        long paiements = 0;
+        Long dernierId = 0L;
+        List<Payment> lot;
+        do {
+            lot = paymentRepository.findCompletedAfter(dernierId, PageRequest.of(0, TAILLE_LOT_RECONSTRUCTION));
+            Map<Bucket, double[]> buckets = new HashMap<>();
+            for (Payment payment : lot) {
+                fold(payment, buckets);
+                dernierId = payment.getId();
+            }
+            ecrire(buckets);
+            paiements += lot.size();
+            entityManager.clear();
+        } while (lot.size() == TAILLE_LOT_RECONSTRUCTION);
+        return paiements;
+    }
+
+    @Transactional(readOnly = true)
+    public double getRevenuTotal() {
+        return revenueRollupRepository
+                .findByDimensionAndGranulariteOrderByMontantDesc(Dimension.TOTAL, Granularite.CUMUL)
+                .stream()
+                .mapToDouble(RevenueRollup::getMontant)
+                .sum();
+    }
+
+    // Cumul par produit (cle = id du produit) ou par catégorie, du plus gros chiffre au plus petit
+    @Transactional(readOnly = true)
+    public List<RevenueRollup> getRevenusCumules(Dimension dimension) {
+        return revenueRollupRepository.findByDimensionAndGranulariteOrderByMontantDesc(dimension, Granularite.CUMUL);
+    }
+
+    // Série temporelle, une ligne par heure ou par jour ayant eu des ventes
+    @Transactional(readOnly = true)
+    public List<RevenueRollup> getSerie(Dimension dimension, String cle, Granularite granularite,
+                                        LocalDateTime debut, LocalDateTime fin) {
+        return revenueRollupRepository.findByDimensionAndCleAndGranulariteAndDebutBetweenOrderByDebutAsc(
+                dimension, cle, granularite, debut, fin);
+    }
+
+    private void fold(Payment payment, Map<Bucket, double[]> buckets) {
+        LocalDateTime date = payment.getPaymentDate() != null ? payment.getPaymentDate() : LocalDateTime.now();
+        double totalArticles = 0;
+        long quantiteTotale = 0;
+        if (payment.getOrderItems() != null) {
+            for (OrderItem item : payment.getOrderItems()) {
+                if (item.getProduct() == null) {
+                    continue;
+                }
+                long quantite = item.getQuantity() == null ? 1 : item.getQuantity();
+                // Prix effectivement payé, pas le prix actuel du produit
+                double prix = item.getPrice() != null ? item.getPrice() : item.getProduct().getPrix();
+                double montant = prix * quantite;
+                totalArticles += montant;
+                quantiteTotale += quantite;
+                ajouter(buckets, Dimension.PRODUIT, String.valueOf(item.getProduct().getId()), date, montant, quantite);
+                if (item.getProduct().getCategory() != null) {
+                    ajouter(buckets, Dimension.CATEGORIE, item.getProduct().getCategory(), date, montant, quantite);
+                }
+            }
+        }
+        double total = payment.getAmount() != null ? payment.getAmount() : totalArticles;
+        ajouter(buckets, Dimension.TOTAL, CLE_TOTAL, date, total, quantiteTotale);
+    }
+
+    private static void ajouter(Map<Bucket, double[]> buckets, Dimension dimension, String cle,
+                                LocalDateTime date, double montant, long quantite) {
+        LocalDateTime[] debuts = {
+                date.truncatedTo(ChronoUnit.HOURS),
+                date.truncatedTo(ChronoUnit.DAYS),
+                DEBUT_CUMUL
+        };
+        Granularite[] granularites = { Granularite.HEURE, Granularite.JOUR, Granularite.CUMUL };
+        for (int i = 0; i < granularites.length; i++) {
+            double[] somme = buckets.computeIfAbsent(new Bucket(dimension, cle, granularites[i], debuts[i]),
+                    b -> new double[2]);
+            somme[0] += montant;
+            somme[1] += quantite;
+        }
+    }
+
+    // Nouvelle transaction : après le commit, celle du paiement n'accepte plus d'écriture
+    private void ecrireSansEchec(Long paymentId, Map<Bucket, double[]> buckets) {
+        try {
+            nouvelleTransaction.executeWithoutResult(status -> ecrire(buckets));
+        } catch (RuntimeException e) {
+            log.error("Agrégats de revenus non mis à jour pour le paiement {} (à rattraper par rebuild)",
+                    paymentId, e);
+        }
+    }
+
+    private void ecrire(Map<Bucket, double[]> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        List<Object[]> lignes = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, somme) -> lignes.add(new Object[] {
+                bucket.dimension.name(),
+                bucket.cle,
+                bucket.granularite.name(),
+                Timestamp.valueOf(bucket.debut),
+                somme[0],
+                (long) somme[1]
+        }));
+        jdbcTemplate.batchUpdate(UPSERT, lignes);
+    }
+
+    private static final class Bucket {
+        private final Dimension dimension;
+        private final String cle;
+        private final Granularite granularite;
+        private final LocalDateTime debut;
+
+        private Bucket(Dimension dimension, String cle, Granularite granularite, LocalDateTime debut) {
+            this.dimension = dimension;
+            this.cle = cle;
+            this.granularite = granularite;
+            this.debut = debut;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Bucket)) return false;
+            Bucket other = (Bucket) obj;
+            return dimension == other.dimension && cle.equals(other.cle)
+                    && granularite == other.granularite && debut.equals(other.debut);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, cle, granularite, debut);
+        }
+    }
+}
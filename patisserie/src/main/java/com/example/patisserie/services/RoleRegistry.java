@@ -0,0 +1,111 @@
+package com.example.patisserie.services;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.models.Role;
+import com.example.patisserie.models.RoleName;
+import com.example.patisserie.repositories.RoleRepository;
+
+/**
+ * Les lignes Role en mémoire : elles sont créées une fois (DataLoader) et ne
+ * changent plus, inutile de les relire à chaque inscription ou changement de rôle.
+ * Le cache est immuable et remplacé d'un bloc, seulement quand un rôle est créé
+ * par ce service (ou sur appel explicite de recharger()). Les Role renvoyées sont
+ * partagées et détachées : ne pas les modifier.
+ */
+@Service
+public class RoleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleRegistry.class);
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private volatile Roles roles = Roles.VIDE;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void recharger() {
+        Map<RoleName, Role> parNom = new EnumMap<>(RoleName.class);
+        for (Role role : roleRepository.findAll()) {
+            if (role.getName() != null) {
+                // Le plus ancien l'emporte si un rôle a été créé en double
+                parNom.merge(role.getName(), role, (a, b) -> a.getId() <= b.getId() ? a : b);
+            }
+        }
+        roles = new Roles(parNom);
+        log.info("Rôles chargés : {}", parNom.keySet());
+    }
+
+    // Le rôle s'il existe, sinon null ; une requête au plus si le cache n'est pas encore chargé
+    public Role get(RoleName name) {
+        Role role = roles.parNom.get(name);
+        if (role == null && roles == Roles.VIDE) {
+            recharger();
+            role = roles.parNom.get(name);
+        }
+        return role;
+    }
+
+    // Recherche par nom sans distinction de casse ("admin", "ADMIN")
+    public Optional<Role> trouver(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        Role role = roles.parLibelle.get(name.trim().toUpperCase(Locale.ROOT));
+        if (role == null && roles == Roles.VIDE) {
+            recharger();
+            role = roles.parLibelle.get(name.trim().toUpperCase(Locale.ROOT));
+        }
+        return Optional.ofNullable(role);
+    }
+
+    // Le rôle, créé en base s'il n'existe pas encore (ce qui recharge le cache)
+    public Role getOuCreer(RoleName name) {
+        if (name == null) {
+            throw new BadRequestException("Nom de rôle requis");
+        }
+        Role role = get(name);
+        if (role != null) {
+            return role;
+        }
+        synchronized (this) {
+            // Relu sous le verrou : un autre appel a pu le créer entre-temps
+            role = roles.parNom.get(name);
+            if (role == null) {
+                Role nouveau = new Role();
+                nouveau.setName(name);
+                roleRepository.save(nouveau);
+                recharger();
+                role = roles.parNom.get(name);
+            }
+            return role;
+        }
+    }
+
+    private static final class Roles {
+        private static final Roles VIDE = new Roles(new EnumMap<>(RoleName.class));
+
+        private final Map<RoleName, Role> parNom;
+        private final Map<String, Role> parLibelle;
+
+        private Roles(Map<RoleName, Role> parNom) {
+            this.parNom = Collections.unmodifiableMap(parNom);
+            Map<String, Role> parLibelle = new HashMap<>();
+            parNom.forEach((nom, role) -> parLibelle.put(nom.name(), role));
+            this.parLibelle = Collections.unmodifiableMap(parLibelle);
+        }
+    }
+}
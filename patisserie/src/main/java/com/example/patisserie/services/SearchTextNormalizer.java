@@ -0,0 +1,68 @@
+package com.example.patisserie.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation du texte pour la recherche : minuscules, sans accents ni
+ * ligatures, mots vides français retirés et pluriels simples ramenés au singulier.
+ * Utilisée à l'identique pour l'indexation et pour les requêtes.
+ */
+public final class SearchTextNormalizer {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "a", "au", "aux", "avec", "ce", "ces", "d", "dans", "de", "des", "du", "en", "et",
+            "l", "la", "le", "les", "ou", "par", "pour", "sans", "sur", "un", "une");
+
+    private SearchTextNormalizer() {
+    }
+
+    // "Crème brûlée" -> "creme brulee"
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae")
+                .replace("ß", "ss");
+        return DIACRITIQUES.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    // "Les gâteaux d'anniversaire" -> [gateau, anniversaire]
+    public static List<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String mot : SEPARATEURS.split(normalize(text))) {
+            if (mot.isEmpty() || MOTS_VIDES.contains(mot)) {
+                continue;
+            }
+            tokens.add(singulier(mot));
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // Trigrammes avec bornes : "tarte" -> [$ta, tar, art, rte, te$]
+    public static Set<String> trigrams(String token) {
+        String borne = "$" + token + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= borne.length(); i++) {
+            trigrams.add(borne.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static String singulier(String mot) {
+        if (mot.length() > 3 && (mot.endsWith("s") || mot.endsWith("x"))) {
+            return mot.substring(0, mot.length() - 1);
+        }
+        return mot;
+    }
+}
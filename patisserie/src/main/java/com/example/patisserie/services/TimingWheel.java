@@ -0,0 +1,70 @@
+package com.example.patisserie.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Roue temporelle hachée : nbSlots cases d'une durée tickMs. Une échéance est
+ * rangée dans la case de son tick, avec le nombre de tours à attendre ; chaque
+ * avancée ne parcourt que les cases écoulées. Planifier coûte O(1), quel que soit
+ * le nombre d'entrées, et rien ne trie les échéances.
+ * La précision est d'un tick : l'appelant revérifie l'échéance exacte s'il en a besoin.
+ */
+final class TimingWheel<K> {
+
+    private final long tickMs;
+    private final List<Entree<K>>[] slots;
+
+    // Prochain tick à traiter
+    private long tickCourant;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(int nbSlots, long tickMs, long maintenantMs) {
+        if (nbSlots < 1 || tickMs < 1) {
+            throw new IllegalArgumentException("Roue temporelle : nbSlots et tickMs doivent être positifs");
+        }
+        this.tickMs = tickMs;
+        this.slots = new List[nbSlots];
+        for (int i = 0; i < nbSlots; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.tickCourant = maintenantMs / tickMs;
+    }
+
+    synchronized void planifier(K cle, long echeanceMs) {
+        // Tick qui suit l'échéance ; une échéance passée sort à la prochaine avancée
+        long tick = Math.max(Math.floorDiv(echeanceMs + tickMs - 1, tickMs), tickCourant);
+        long tours = (tick - tickCourant) / slots.length;
+        slots[(int) (tick % slots.length)].add(new Entree<>(cle, tours));
+    }
+
+    // Traite les ticks écoulés jusqu'à maintenantMs et renvoie les clés arrivées à échéance
+    synchronized List<K> avancer(long maintenantMs) {
+        List<K> expirees = new ArrayList<>();
+        long cible = maintenantMs / tickMs;
+        for (; tickCourant <= cible; tickCourant++) {
+            Iterator<Entree<K>> it = slots[(int) (tickCourant % slots.length)].iterator();
+            while (it.hasNext()) {
+                Entree<K> entree = it.next();
+                if (entree.tours == 0) {
+                    expirees.add(entree.cle);
+                    it.remove();
+                } else {
+                    entree.tours--;
+                }
+            }
+        }
+        return expirees;
+    }
+
+    private static final class Entree<K> {
+        private final K cle;
+        private long tours;
+
+        private Entree(K cle, long tours) {
+            this.cle = cle;
+            this.tours = tours;
+        }
+    }
+}
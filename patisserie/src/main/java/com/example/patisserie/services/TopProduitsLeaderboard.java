@@ -0,0 +1,297 @@
+package com.example.patisserie.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.patisserie.events.CompteursCommandesEvent;
+import com.example.patisserie.events.ProduitChangedEvent;
+import com.example.patisserie.models.Produit;
+import com.example.patisserie.models.RevenueRollup;
+import com.example.patisserie.models.RevenueRollup.Dimension;
+import com.example.patisserie.models.RevenueRollup.Granularite;
+import com.example.patisserie.repositories.ProduitRepository;
+import com.example.patisserie.repositories.RevenueRollupRepository;
+
+/**
+ * Classement des produits les plus commandés, tenu à jour à chaque commande.
+ * Les produits sont rangés dans des skip-lists triées (globale et par catégorie) :
+ * lire le top K coûte O(K). Les classements sur une période ("top de la semaine")
+ * s'appuient sur des compteurs journaliers et un tas borné à K éléments.
+ * Au démarrage, les compteurs journaliers sont relus depuis les agrégats JOUR
+ * par produit (RevenueRollupService) : les classements par période survivent
+ * à un redémarrage.
+ */
+@Service
+public class TopProduitsLeaderboard implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TopProduitsLeaderboard.class);
+
+    private static final Comparator<Rang> PAR_COMMANDES = Comparator
+            .comparingLong((Rang r) -> r.commandes).reversed()
+            .thenComparingLong(r -> r.id);
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    // @Lazy : OrderCounterService alimente aussi ce classement
+    @Lazy
+    @Autowired
+    private OrderCounterService orderCounterService;
+
+    @Value("${patisserie.leaderboard.retention-days:28}")
+    private int retentionJours;
+
+    private final Map<Long, Classement> classements = new ConcurrentHashMap<>();
+    private final NavigableSet<Rang> global = new ConcurrentSkipListSet<>(PAR_COMMANDES);
+    private final Map<String, NavigableSet<Rang>> parCategorie = new ConcurrentHashMap<>();
+    // jour -> (id produit -> commandes du jour)
+    private final ConcurrentSkipListMap<LocalDate, Map<Long, LongAdder>> journaliers = new ConcurrentSkipListMap<>();
+
+    public int getRetentionJours() {
+        return retentionJours;
+    }
+
+    /**
+     * Produits classés par nombre total de commandes.
+     *
+     * @param category null pour le classement global
+     */
+    public List<Produit> top(String category, int offset, int limit) {
+        NavigableSet<Rang> rangs = category == null ? global : parCategorie.get(category);
+        List<Produit> resultat = new ArrayList<>(limit);
+        if (rangs == null) {
+            return resultat;
+        }
+        Iterator<Rang> it = rangs.iterator();
+        for (int i = 0; it.hasNext() && resultat.size() < limit; i++) {
+            Rang rang = it.next();
+            Classement classement = classements.get(rang.id);
+            if (i >= offset && classement != null) {
+                resultat.add(avecCompteur(classement.produit, rang.commandes));
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Produits les plus commandés sur les derniers jours (aujourd'hui inclus).
+     * Dans le résultat, compteurCommandes vaut le nombre de commandes de la période.
+     */
+    public List<Produit> topPeriode(int jours, String category, int offset, int limit) {
+        LocalDate debut = LocalDate.now().minusDays(Math.min(jours, retentionJours) - 1L);
+        Map<Long, Long> totaux = new HashMap<>();
+        for (Map<Long, LongAdder> jour : journaliers.tailMap(debut, true).values()) {
+            jour.forEach((id, commandes) -> totaux.merge(id, commandes.sum(), Long::sum));
+        }
+
+        // Tas min borné : on ne garde que les offset + limit meilleurs
+        long garder = (long) offset + limit;
+        PriorityQueue<Rang> tas = new PriorityQueue<>(PAR_COMMANDES.reversed());
+        totaux.forEach((id, commandes) -> {
+            Classement classement = classements.get(id);
+            if (classement == null || (category != null && !category.equals(classement.produit.getCategory()))) {
+                return;
+            }
+            tas.offer(new Rang(id, commandes));
+            if (tas.size() > garder) {
+                tas.poll();
+            }
+        });
+
+        List<Rang> meilleurs = new ArrayList<>(tas);
+        meilleurs.sort(PAR_COMMANDES);
+        List<Produit> resultat = new ArrayList<>(limit);
+        for (int i = offset; i < meilleurs.size(); i++) {
+            Rang rang = meilleurs.get(i);
+            Classement classement = classements.get(rang.id);
+            if (classement != null) {
+                resultat.add(avecCompteur(classement.produit, rang.commandes));
+            }
+        }
+        return resultat;
+    }
+
+    // Appelé par OrderCounterService pour chaque commande validée
+    public void recordOrder(Long produitId, int quantite) {
+        journaliers.computeIfAbsent(LocalDate.now(), j -> new ConcurrentHashMap<>())
+                .computeIfAbsent(produitId, id -> new LongAdder())
+                .add(quantite);
+        synchronized (this) {
+            Classement classement = classements.get(produitId);
+            if (classement != null) {
+                Rang nouveau = new Rang(produitId, classement.rang.commandes + quantite);
+                reclasser(classement.produit.getCategory(), classement.rang, nouveau);
+                classements.put(produitId, new Classement(classement.produit, nouveau));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        classements.clear();
+        global.clear();
+        parCategorie.clear();
+        for (Produit produit : produitRepository.findAll()) {
+            long commandes = produit.getCompteurCommandes() + orderCounterService.getPending(produit.getId());
+            placer(produit, commandes);
+        }
+    }
+
+    /**
+     * Recharge les compteurs journaliers de la période de rétention, avant le
+     * démarrage du serveur web : aucune commande n'a encore été enregistrée en
+     * mémoire, aucune n'est donc comptée à la fois ici et par recordOrder().
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        chargerJournaliers();
+    }
+
+    private void chargerJournaliers() {
+        LocalDate debut = LocalDate.now().minusDays(retentionJours - 1L);
+        List<RevenueRollup> lignes = revenueRollupRepository.findByDimensionAndGranulariteAndDebutGreaterThanEqual(
+                Dimension.PRODUIT, Granularite.JOUR, debut.atStartOfDay());
+        for (RevenueRollup ligne : lignes) {
+            Long produitId;
+            try {
+                produitId = Long.valueOf(ligne.getCle());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            journaliers.computeIfAbsent(ligne.getDebut().toLocalDate(), j -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(produitId, id -> new LongAdder())
+                    .add(ligne.getQuantite());
+        }
+        log.info("Classement par période : {} compteurs journaliers rechargés depuis le {}", lignes.size(), debut);
+    }
+
+    @TransactionalEventListener
+    public synchronized void onProduitChanged(ProduitChangedEvent event) {
+        for (Produit produit : event.getProduits()) {
+            Classement ancien = classements.remove(produit.getId());
+            if (ancien != null) {
+                retirer(ancien.produit.getCategory(), ancien.rang);
+            }
+            if (event.getType() == ProduitChangedEvent.Type.DELETED) {
+                continue;
+            }
+            // Le classement fait foi pour les commandes : la base peut être en retard d'un flush
+            long commandes = ancien != null ? ancien.rang.commandes : produit.getCompteurCommandes();
+            placer(produit, commandes);
+        }
+    }
+
+    /**
+     * Recale les totaux sur la base (compteur écrit + incréments en attente) :
+     * y entrent les commandes comptées par d'autres instances. Un écart dû à une
+     * commande en cours d'enregistrement est corrigé à l'annonce suivante.
+     */
+    @EventListener
+    public synchronized void onCompteursCommandes(CompteursCommandesEvent event) {
+        event.getCompteurs().forEach((id, compteur) -> {
+            Classement classement = classements.get(id);
+            if (classement == null) {
+                return;
+            }
+            long commandes = compteur + orderCounterService.getPending(id);
+            if (commandes != classement.rang.commandes) {
+                Rang nouveau = new Rang(id, commandes);
+                reclasser(classement.produit.getCategory(), classement.rang, nouveau);
+                classements.put(id, new Classement(classement.produit, nouveau));
+            }
+        });
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void purgerJoursExpires() {
+        journaliers.headMap(LocalDate.now().minusDays(retentionJours - 1L)).clear();
+    }
+
+    private void placer(Produit produit, long commandes) {
+        Rang rang = new Rang(produit.getId(), commandes);
+        classements.put(produit.getId(), new Classement(produit, rang));
+        reclasser(produit.getCategory(), null, rang);
+    }
+
+    private void reclasser(String category, Rang ancien, Rang nouveau) {
+        if (ancien != null) {
+            retirer(category, ancien);
+        }
+        global.add(nouveau);
+        if (category != null) {
+            parCategorie.computeIfAbsent(category, c -> new ConcurrentSkipListSet<>(PAR_COMMANDES)).add(nouveau);
+        }
+    }
+
+    private void retirer(String category, Rang rang) {
+        global.remove(rang);
+        if (category != null) {
+            NavigableSet<Rang> rangs = parCategorie.get(category);
+            if (rangs != null) {
+                rangs.remove(rang);
+            }
+        }
+    }
+
+    // Copie détachée : le produit partagé par le classement n'est jamais modifié
+    private static Produit avecCompteur(Produit source, long commandes) {
+        Produit copie = new Produit();
+        copie.setId(source.getId());
+        copie.setNom(source.getNom());
+        copie.setPrix(source.getPrix());
+        copie.setImage(source.getImage());
+        copie.setImageThumbnail(source.getImageThumbnail());
+        copie.setImageMedium(source.getImageMedium());
+        copie.setImageFull(source.getImageFull());
+        copie.setDescription(source.getDescription());
+        copie.setCategory(source.getCategory());
+        copie.setCompteurCommandes((int) Math.min(commandes, Integer.MAX_VALUE));
+        return copie;
+    }
+
+    private static final class Rang {
+        private final long id;
+        private final long commandes;
+
+        private Rang(long id, long commandes) {
+            this.id = id;
+            this.commandes = commandes;
+        }
+    }
+
+    private static final class Classement {
+        private final Produit produit;
+        private final Rang rang;
+
+        private Classement(Produit produit, Rang rang) {
+            this.produit = produit;
+            this.rang = rang;
+        }
+    }
+}
@@ -1,56 +1,119 @@
 package com.example.patisserie.services;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 
 import javax.management.relation.RoleNotFoundException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.patisserie.dto.LoginRequest;
 import com.example.patisserie.dto.RegisterRequest;
+import com.example.patisserie.dto.UtilisateurFiche;
+import com.example.patisserie.dto.UtilisateurPage;
+import com.example.patisserie.dto.UtilisateurResume;
 import com.example.patisserie.dto.VerifyAdminRequest;
+import com.example.patisserie.exceptions.BadRequestException;
+import com.example.patisserie.exceptions.ServiceSaturatedException;
+import com.example.patisserie.models.OneShotToken;
 import com.example.patisserie.models.Role;
 import com.example.patisserie.models.RoleName;
 import com.example.patisserie.models.Utilisateur;
-import com.example.patisserie.repositories.RoleRepository;
 import com.example.patisserie.repositories.UtilisateurRepository;
 import com.example.patisserie.security.JwtUtils;
 
 @Service
 public class UtilisateurService {
 
+    private static final Logger log = LoggerFactory.getLogger(UtilisateurService.class);
+
     @Autowired
     private UtilisateurRepository utilisateurRepository;
 
+    // Rôles en mémoire, chargés au démarrage
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
+    // BCrypt hors des threads Tomcat, sur un pool borné
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private EmailBloomFilter emailBloomFilter;
+
+    @Autowired
+    private OneShotTokenStore tokenStore;
+
     @Autowired
     private EmailService emailService;
 
+    /**
+     * Normalise les emails des comptes créés avant que l'email soit stocké en
+     * minuscules ; sans quoi ils ne seraient plus trouvés. Un email qui ne diffère
+     * d'un autre que par la casse est laissé tel quel et signalé : les deux comptes
+     * sont à fusionner à la main.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void normaliserEmailsExistants() {
+        int normalises = 0;
+        for (Long id : utilisateurRepository.findIdsEmailNonNormalise()) {
+            Utilisateur utilisateur = utilisateurRepository.findById(id).orElse(null);
+            if (utilisateur == null) {
+                continue;
+            }
+            try {
+                normalises += utilisateurRepository.updateEmail(id, Utilisateur.normaliserEmail(utilisateur.getEmail()));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Email du compte {} non normalisé : un autre compte utilise {} à la casse près",
+                        id, utilisateur.getEmail());
+            }
+        }
+        if (normalises > 0) {
+            log.info("{} emails de comptes normalisés", normalises);
+        }
+    }
+
     public String authenticate(LoginRequest request) {
         // Trouver l'utilisateur par email
         Utilisateur utilisateur = utilisateurRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Email ou mot de passe incorrect !"));
 
         // Vérifier le mot de passe
-        if (!passwordEncoder.matches(request.getMotDePasse(), utilisateur.getMotDePasse())) {
+        if (!passwordHashingExecutor.matches(request.getMotDePasse(), utilisateur.getMotDePasse())) {
             throw new RuntimeException("Email ou mot de passe incorrect !");
         }
+        rehacherSiNecessaire(utilisateur, request.getMotDePasse());
 
         // Générer le token JWT
-        return jwtUtils.generateToken(utilisateur.getEmail());
+        return jwtUtils.generateToken(utilisateur);
+    }
+
+    // Le mot de passe en clair n'est connu qu'ici : on en profite pour mettre le hachage à niveau
+    private void rehacherSiNecessaire(Utilisateur utilisateur, String motDePasse) {
+        String ancien = utilisateur.getMotDePasse();
+        if (!passwordHashingExecutor.upgradeEncoding(ancien)) {
+            return;
+        }
+        try {
+            String nouveau = passwordHashingExecutor.encode(motDePasse);
+            utilisateurRepository.updateMotDePasse(utilisateur.getId(), ancien, nouveau);
+        } catch (ServiceSaturatedException e) {
+            // Pool saturé : la mise à niveau attendra la prochaine connexion
+        }
     }
 
     public boolean verifyAdminPassword(VerifyAdminRequest request) {
@@ -64,16 +127,57 @@ public class UtilisateurService {
         if (!isAdmin) {
             return false;
         }
-        System.out.println("from service: pass "+ passwordEncoder.matches(request.getPassword(), user.getMotDePasse()));
-        // System.out.println("from service: role "+ isAdmin);
-        // Use your existing passwordEncoder to verify the password
-        return passwordEncoder.matches(request.getPassword(), user.getMotDePasse());
+        // Une seule vérification BCrypt
+        return passwordHashingExecutor.matches(request.getPassword(), user.getMotDePasse());
     }
     
-    public List<Utilisateur> getAllUsers() {
-        return utilisateurRepository.findAll();
+    public static final int MAX_PAGE_ANNUAIRE = 200;
+
+    /**
+     * Annuaire paginé par id (keyset) : une requête pour les ids de la page, une
+     * seconde pour les utilisateurs et leurs rôles (fetch join). Filtres facultatifs
+     * sur le rôle et le début de l'email (sans distinction de casse).
+     */
+    @Transactional(readOnly = true)
+    public UtilisateurPage getAnnuaire(String cursor, int size, String role, String prefixeEmail) {
+        if (size < 1 || size > MAX_PAGE_ANNUAIRE) {
+            throw new BadRequestException("La taille de page doit être comprise entre 1 et " + MAX_PAGE_ANNUAIRE);
+        }
+        long apres;
+        try {
+            apres = cursor == null || cursor.isBlank() ? 0L : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Curseur invalide");
+        }
+        RoleName roleName = null;
+        if (role != null && !role.isBlank()) {
+            try {
+                roleName = RoleName.valueOf(role.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Rôle inconnu : " + role);
+            }
+        }
+        String prefixe = prefixeEmail == null || prefixeEmail.isBlank() ? null
+                : prefixeEmail.trim().toLowerCase(Locale.ROOT)
+                        .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        // Un id de plus pour savoir s'il existe une page suivante
+        List<Long> ids = utilisateurRepository.findIdsAnnuaire(apres, roleName, prefixe, PageRequest.of(0, size + 1));
+        String suivant = null;
+        if (ids.size() > size) {
+            ids = ids.subList(0, size);
+            suivant = String.valueOf(ids.get(size - 1));
+        }
+        if (ids.isEmpty()) {
+            return new UtilisateurPage(List.of(), null);
+        }
+        List<UtilisateurResume> items = utilisateurRepository.findAvecRoles(ids).stream()
+                .map(u -> new UtilisateurResume(u.getId(), u.getNom(), u.getEmail(),
+                        u.getRoles().stream().sorted(Comparator.comparing(Role::getName)).toList()))
+                .toList();
+        return new UtilisateurPage(items, suivant);
     }
-    
+
     public class EmailAlreadyExistsException extends RuntimeException {
         public EmailAlreadyExistsException(String message) {
             super(message);
@@ -92,46 +196,79 @@ public class UtilisateurService {
         }
     }
 
-    private String generateConfirmationToken() {
-        return UUID.randomUUID().toString();
-    }
-
     public Optional<Utilisateur> getUserByEmail(String email) {
         return utilisateurRepository.findByEmail(email);
     }
 
+    // Fiche d'édition pour l'admin : ni fournisseur, ni statut du compte, ni mot de passe
+    @Transactional(readOnly = true)
+    public Optional<UtilisateurFiche> getFiche(String email) {
+        return utilisateurRepository.findByEmail(email)
+                .map(u -> new UtilisateurFiche(u.getId(), u.getNom(), u.getEmail(), u.getTelephone(), u.getAdresse(),
+                        u.getRoles().stream().sorted(Comparator.comparing(Role::getName)).toList()));
+    }
+
+    /**
+     * true si aucun compte n'utilise cet email. Le filtre de Bloom répond seul pour
+     * un email jamais vu ; sinon la base tranche. Indicatif : seule la contrainte
+     * unique fait foi au moment de l'inscription.
+     */
+    public boolean isEmailDisponible(String email) {
+        if (email == null || email.isBlank()) {
+            throw new BadRequestException("Email requis");
+        }
+        return !emailBloomFilter.peutContenir(email) || !utilisateurRepository.existsByEmail(email);
+    }
+
+    // Évite un hachage BCrypt pour un email déjà pris ; un email inconnu du filtre ne coûte aucune requête
+    private void verifierEmailLibre(String email, String message) {
+        if (emailBloomFilter.peutContenir(email) && utilisateurRepository.existsByEmail(email)) {
+            throw new EmailAlreadyExistsException(message);
+        }
+    }
+
+    // Un seul INSERT : une inscription concurrente sur le même email est rejetée par la contrainte unique
+    private Utilisateur enregistrerNouveau(Utilisateur utilisateur, String emailDejaPris) {
+        Utilisateur enregistre;
+        try {
+            enregistre = utilisateurRepository.saveAndFlush(utilisateur);
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (cause.contains(Utilisateur.CONTRAINTE_EMAIL)) {
+                // Compte créé hors de ce service (autre instance, import) : le filtre l'apprend
+                emailBloomFilter.ajouter(utilisateur.getEmail());
+                throw new EmailAlreadyExistsException(emailDejaPris);
+            }
+            throw e;
+        }
+        emailBloomFilter.ajouter(enregistre.getEmail());
+        return enregistre;
+    }
+
     public void registerPatisserie(RegisterRequest request) {
         // Vérifiez si l'utilisateur existe déjà
-        if (utilisateurRepository.existsByEmail(request.getEmail())) {
-            throw new EmailAlreadyExistsException("L'utilisateur avec cet email existe déjà !");
-        }
+        String emailDejaPris = "L'utilisateur avec cet email existe déjà !";
+        verifierEmailLibre(request.getEmail(), emailDejaPris);
 
         // Créez un nouvel utilisateur
         Utilisateur utilisateur = new Utilisateur();
         utilisateur.setNom(request.getNom());
         utilisateur.setEmail(request.getEmail());
-        utilisateur.setMotDePasse(passwordEncoder.encode(request.getMotDePasse()));
+        utilisateur.setMotDePasse(passwordHashingExecutor.encode(request.getMotDePasse()));
         utilisateur.setAdresse(request.getAdresse());
         utilisateur.setTelephone(request.getTelephone());
 
-        // Attribuez le rôle USER par défaut
-        Role roleUser = roleRepository.findByName(RoleName.USER)
-                .orElseGet(() -> {
-                    Role newRole = new Role();
-                    newRole.setName(RoleName.USER);
-                    return roleRepository.save(newRole);
-                });
-        utilisateur.getRoles().add(roleUser);
+        // Attribuez le rôle USER par défaut (en cache, sans requête)
+        utilisateur.getRoles().add(roleRegistry.getOuCreer(RoleName.USER));
 
         // Sauvegardez l'utilisateur
-        utilisateurRepository.save(utilisateur);
+        enregistrerNouveau(utilisateur, emailDejaPris);
     }
 
     public void registerSocialUser(RegisterRequest request) {
         // Vérifier si l'utilisateur existe déjà
-        if (utilisateurRepository.existsByEmail(request.getEmail())) {
-            throw new EmailAlreadyExistsException("Un compte avec cet email existe déjà !");
-        }
+        String emailDejaPris = "Un compte avec cet email existe déjà !";
+        verifierEmailLibre(request.getEmail(), emailDejaPris);
 
         // Valider le fournisseur social
         if (request.getProvider() == null || request.getProvider().isEmpty()) {
@@ -144,7 +281,7 @@ public class UtilisateurService {
         utilisateur.setEmail(request.getEmail());
         // Générer un mot de passe aléatoire pour les comptes sociaux
         String randomPassword = UUID.randomUUID().toString();
-        utilisateur.setMotDePasse(passwordEncoder.encode(randomPassword));
+        utilisateur.setMotDePasse(passwordHashingExecutor.encode(randomPassword));
         utilisateur.setProvider(request.getProvider());
         utilisateur.setProviderId(request.getProviderId());
 
@@ -156,27 +293,21 @@ public class UtilisateurService {
             utilisateur.setTelephone(request.getTelephone());
         }
 
-        // Attribuer le rôle USER par défaut
-        Role roleUser = roleRepository.findByName(RoleName.USER)
-                .orElseGet(() -> {
-                    Role newRole = new Role();
-                    newRole.setName(RoleName.USER);
-                    return roleRepository.save(newRole);
-                });
-        utilisateur.getRoles().add(roleUser);
+        // Attribuer le rôle USER par défaut (en cache, sans requête)
+        utilisateur.getRoles().add(roleRegistry.getOuCreer(RoleName.USER));
 
         // Sauvegarder l'utilisateur
-        Utilisateur savedUser = utilisateurRepository.save(utilisateur);
+        Utilisateur savedUser = enregistrerNouveau(utilisateur, emailDejaPris);
 
-        // Envoyer l'email de confirmation
-        String confirmationToken = generateConfirmationToken();
+        // Envoyer l'email de confirmation (le token est enregistré haché)
+        String confirmationToken = tokenStore.emettre(OneShotToken.Type.EMAIL_CONFIRMATION, savedUser);
         emailService.sendConfirmationEmail(savedUser.getEmail(), confirmationToken);
     }
     // Assigner un rôle à un utilisateur
     public void assignRoleToUser(Long userId, String roleName) {
         Utilisateur utilisateur = utilisateurRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable !"));
-        Role role = roleRepository.findByName(roleName)
+        Role role = roleRegistry.trouver(roleName)
                 .orElseThrow(() -> new RuntimeException("Rôle introuvable !"));
         utilisateur.getRoles().add(role);
         utilisateurRepository.save(utilisateur);
@@ -186,7 +317,7 @@ public class UtilisateurService {
     public void revokeRoleFromUser(Long userId, String roleName) {
         Utilisateur utilisateur = utilisateurRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable !"));
-        Role role = roleRepository.findByName(roleName)
+        Role role = roleRegistry.trouver(roleName)
                 .orElseThrow(() -> new RuntimeException("Rôle introuvable !"));
         utilisateur.getRoles().remove(role);
         utilisateurRepository.save(utilisateur);
@@ -204,13 +335,7 @@ public class UtilisateurService {
         // Update roles
         user.getRoles().clear();
         for (Role role : updatedUser.getRoles()) {
-            Role existingRole = roleRepository.findByName(role.getName())
-                    .orElseGet(() -> {
-                        Role newRole = new Role();
-                        newRole.setName(role.getName());
-                        return roleRepository.save(newRole);
-                    });
-            user.getRoles().add(existingRole);
+            user.getRoles().add(roleRegistry.getOuCreer(role.getName()));
         }
 
         // Save changes
@@ -224,11 +349,13 @@ public class UtilisateurService {
         utilisateurRepository.delete(user);
     }
 
-    public Set<Role> getUserRoles(String email) {
-        Utilisateur user = utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable !"));
-
-        return user.getRoles();
+    // Rôles actuels, lus en base : un rôle révoqué disparaît tout de suite, sans attendre l'expiration du JWT
+    public List<RoleName> getUserRoles(String email) {
+        List<RoleName> roles = utilisateurRepository.findNomsRoles(email);
+        if (roles.isEmpty() && !utilisateurRepository.existsByEmail(email)) {
+            throw new RuntimeException("Utilisateur introuvable !");
+        }
+        return roles;
     }
 
     public Utilisateur findByProviderAndProviderId(String provider, String providerId) {
@@ -237,14 +364,10 @@ public class UtilisateurService {
     }
 
     public void confirmEmail(String token) {
-        // Implement email confirmation logic
-        // This would typically involve finding a user by confirmation token
-        // and setting their email as verified
-        Utilisateur user = utilisateurRepository.findByConfirmationToken(token)
-                .orElseThrow(() -> new RuntimeException("Token de confirmation invalide !"));
-        
+        // Le token n'est valable qu'une fois : il est supprimé ici
+        Utilisateur user = tokenStore.consommer(OneShotToken.Type.EMAIL_CONFIRMATION, token);
+
         user.setEmailVerified(true);
-        user.setConfirmationToken(null);
         utilisateurRepository.save(user);
     }
 }
\ No newline at end of file
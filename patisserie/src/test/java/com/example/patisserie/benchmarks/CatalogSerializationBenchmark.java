@@ -0,0 +1,161 @@
+package com.example.patisserie.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.patisserie.models.OrderItem;
+import com.example.patisserie.models.Payment;
+import com.example.patisserie.models.Produit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Compare JSON, CBOR et Smile sur le catalogue et la liste des paiements :
+ * taille des réponses puis débit d'encodage et de décodage (JMH).
+ *
+ * Lancement :
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *       com.example.patisserie.benchmarks.CatalogSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogSerializationBenchmark {
+
+    @Param({ "JSON", "CBOR", "SMILE" })
+    public String format;
+
+    @Param({ "100", "1000" })
+    public int taille;
+
+    private ObjectMapper mapper;
+    private List<Produit> catalogue;
+    private List<Payment> paiements;
+    private byte[] catalogueEncode;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        mapper = mapper(format);
+        catalogue = catalogue(taille);
+        paiements = paiements(taille, catalogue);
+        catalogueEncode = mapper.writeValueAsBytes(catalogue);
+    }
+
+    @Benchmark
+    public byte[] encoderCatalogue() throws Exception {
+        return mapper.writeValueAsBytes(catalogue);
+    }
+
+    @Benchmark
+    public byte[] encoderPaiements() throws Exception {
+        return mapper.writeValueAsBytes(paiements);
+    }
+
+    @Benchmark
+    public Produit[] decoderCatalogue() throws Exception {
+        return mapper.readValue(catalogueEncode, Produit[].class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("Taille des réponses (octets)");
+        for (int n : new int[] { 100, 1000 }) {
+            List<Produit> catalogue = catalogue(n);
+            List<Payment> paiements = paiements(n, catalogue);
+            for (String format : List.of("JSON", "CBOR", "SMILE")) {
+                ObjectMapper mapper = mapper(format);
+                System.out.printf("  %-5s  %4d produits : %8d   %4d paiements : %8d%n", format,
+                        n, mapper.writeValueAsBytes(catalogue).length,
+                        n, mapper.writeValueAsBytes(paiements).length);
+            }
+        }
+        new Runner(new OptionsBuilder()
+                .include(CatalogSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static ObjectMapper mapper(String format) {
+        ObjectMapper mapper = switch (format) {
+            case "CBOR" -> new CBORMapper();
+            case "SMILE" -> new SmileMapper();
+            default -> new JsonMapper();
+        };
+        return mapper.registerModule(new JavaTimeModule());
+    }
+
+    private static List<Produit> catalogue(int n) {
+        String[] categories = { "cake", "juice", "gift", "others" };
+        List<Produit> produits = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            Produit produit = new Produit();
+            produit.setId((long) i);
+            produit.setNom("Gâteau au chocolat n°" + i);
+            produit.setPrix(5 + (i % 40) * 0.75);
+            produit.setDescription("Génoise moelleuse, ganache au chocolat noir et éclats de noisettes caramélisées.");
+            produit.setCategory(categories[i % categories.length]);
+            String image = "/images/store/ab/" + String.format("%064x", (long) i * 2654435761L) + ".png";
+            produit.setImage(image);
+            produit.setImageThumbnail(image.replace(".png", "-thumb.jpg"));
+            produit.setImageMedium(image.replace(".png", "-medium.jpg"));
+            produit.setCompteurCommandes(i * 13 % 500);
+            produits.add(produit);
+        }
+        return produits;
+    }
+
+    private static List<Payment> paiements(int n, List<Produit> catalogue) {
+        List<Payment> paiements = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            Payment payment = new Payment();
+            payment.setId((long) i);
+            payment.setPaymentMethod(i % 2 == 0 ? "MOBILE_MONEY" : "BANK_CARD");
+            payment.setOperator(i % 2 == 0 ? "ORANGE" : null);
+            payment.setPhoneNumber("6" + (90000000 + i));
+            payment.setStatus("COMPLETED");
+            payment.setReceiptNumber("REC-" + (1700000000000L + i));
+            payment.setPaymentDate(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(i));
+            payment.setCustomerEmail("client" + i + "@example.com");
+            payment.setDeliveryAddress("Rue " + i + ", Yaoundé");
+            List<OrderItem> items = new ArrayList<>();
+            double montant = 0;
+            for (int j = 0; j < 3; j++) {
+                Produit produit = catalogue.get((i * 3 + j) % catalogue.size());
+                OrderItem item = new OrderItem();
+                item.setId((long) (i * 3 + j));
+                item.setProduct(produit);
+                item.setQuantity(1 + j);
+                item.setPrice(produit.getPrix());
+                montant += produit.getPrix() * (1 + j);
+                items.add(item);
+            }
+            payment.setOrderItems(items);
+            payment.setAmount(montant);
+            payment.setSuccessful(true);
+            paiements.add(payment);
+        }
+        return paiements;
+    }
+}